@@ -1,24 +1,26 @@
 package basicstructures;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
-/** A resizable array that can access each position in constant time.
+/** A resizable array that can access each position in constant time. How much it grows when full is decided by a
+ * GrowthPolicy. The default grows geometrically, so adding to the end takes amortized constant time.
  * @author Sobhan Mehrpour
  */
 public class ArrayList<T> extends Sequence<T> 
 {
 	
-	private boolean shouldDouble;
+	private GrowthPolicy growthPolicy;
 	private T[] array;
 	private int size;
 	
 	/**
-	 * Default constructor. Increments when resizing. Has a starting capacity of 10.
+	 * Default constructor. Grows by half when resizing. Has a starting capacity of 10.
 	 */
 	public ArrayList() 
 	{
 		// Calls full constructor.
-		this(10, false);
+		this(10, GrowthPolicy.DEFAULT);
 	}
 	
 	/** Resizing is done based on user input. Starting capacity defaults to 10.
@@ -31,58 +33,82 @@ public class ArrayList<T> extends Sequence<T>
 		this(10, shouldDouble);
 	}
 	
-	/** Starting capacity is left up to the user. The sequence will increment when resizing by default.
+	/** Starting capacity is left up to the user. The sequence will grow by half when resizing by default.
 	 * @param startCapacity The initial capacity of the array.
 	 */
 	public ArrayList(int startCapacity) 
 	{
 		// Calls full constructor.
-		this(startCapacity, false);
+		this(startCapacity, GrowthPolicy.DEFAULT);
 	}
 
-	/** A full constructor that allows the user to decide both the start capacity and the means of resizing.
+	/** Allows the user to decide both the start capacity and whether the array doubles or increments.
 	 * @param startCapacity The initial capacity of the array.
 	 * @param shouldDouble Whether resizing is done incrementally or doubles. True means it doubles. 
 	 * False means it increments.
 	 */
-	@SuppressWarnings("unchecked")
 	public ArrayList(int startCapacity, boolean shouldDouble) 
+	{
+		// Calls full constructor.
+		this(startCapacity, shouldDouble ? GrowthPolicy.DOUBLING : GrowthPolicy.INCREMENTAL);
+	}
+
+	/** Resizing follows the given policy. Starting capacity defaults to 10.
+	 * @param growthPolicy Decides the new capacity whenever the array is full.
+	 */
+	public ArrayList(GrowthPolicy growthPolicy) 
+	{
+		// Calls full constructor.
+		this(10, growthPolicy);
+	}
+
+	/** A full constructor that allows the user to decide both the start capacity and the means of resizing.
+	 * @param startCapacity The initial capacity of the array.
+	 * @param growthPolicy Decides the new capacity whenever the array is full.
+	 */
+	@SuppressWarnings("unchecked")
+	public ArrayList(int startCapacity, GrowthPolicy growthPolicy) 
 	{
 		// Handling exceptional cases.
 		if(startCapacity < 0)
 			throw new IllegalArgumentException("The start capacity cannot be negative.");
+		if(growthPolicy == null)
+			throw new IllegalArgumentException("The growth policy cannot be null.");
 		
 		// Instantiating the attributes.
 		size = 0;
-		this.shouldDouble = shouldDouble;
+		this.growthPolicy = growthPolicy;
 		array = (T[])(new Object[startCapacity]);
 	}
 	
 	/**
-	 * Private method for resizing the array when needed. <br>
-	 * <strong> If shouldDouble = true </strong> then the capacity will double to achieve better amortized time. <br>
-	 * <strong> If shouldDouble = false</strong>  then the capacity will increment to save space. <br>
+	 * Private method for resizing the array when it is full. The new capacity is decided by the growth policy.
 	 */
-	@SuppressWarnings("unchecked")
 	private void increaseCapacity() 
 	{
 		// Checks to see if resizing is needed or not.
 		if(size < capacity())
 			return;
 		
-		// Resizing.
-		T[] temp;
-		if(shouldDouble)
-			temp = (T[])(new Object[array.length * 2]);
-		else
-			temp = (T[])(new Object[array.length + 1]);
-		
-		// Copying all items.
-		for(int i = 0 ; i < size ; i++)
-			temp[i] = array[i];
-		
-		// Replacement.
-		array = temp;
+		resize(growthPolicy.grow(array.length, size + 1));
+	}
+	
+	/** Makes sure the array can hold the given number of objects without resizing again. Useful before adding many
+	 * objects at once.
+	 * @param minimumCapacity The number of objects the array should be able to hold.
+	 */
+	public void ensureCapacity(int minimumCapacity) 
+	{
+		if(minimumCapacity > capacity())
+			resize(growthPolicy.grow(array.length, minimumCapacity));
+	}
+	
+	/** Moves every object into an array of the given capacity with a single bulk copy.
+	 * @param newCapacity The new capacity. At least the size.
+	 */
+	private void resize(int newCapacity) 
+	{
+		array = Arrays.copyOf(array, newCapacity);
 	}
 	
 	public void addLast(T object) 
@@ -104,8 +130,7 @@ public class ArrayList<T> extends Sequence<T>
 		
 		// Resizing if needed and shifting all objects.
 		increaseCapacity();
-		for(int i = size-1 ; i >= 0 ; i--)
-			array[i+1] = array[i];
+		System.arraycopy(array, 0, array, 1, size);
 		
 		// Adding object to the start.
 		array[0] = object;
@@ -122,8 +147,7 @@ public class ArrayList<T> extends Sequence<T>
 		
 		// Resizing if needed and shifting all objects.
 		increaseCapacity();
-		for(int i = size - 1 ; i >= index ; i--)
-			array[i+1] = array[i];
+		System.arraycopy(array, index, array, index + 1, size - index);
 		
 		// Adding object to the index.
 		array[index] = object;
@@ -168,8 +192,7 @@ public class ArrayList<T> extends Sequence<T>
 		
 		// Gets the first item and shifts everything appropriately.
 		T temp = getFirst();
-		for(int i = 1 ; i < size ; i++)
-			array[i-1] = array[i];
+		System.arraycopy(array, 1, array, 0, size - 1);
 		
 		// Removing item and returning it.
 		array[--size] = null;
@@ -198,8 +221,7 @@ public class ArrayList<T> extends Sequence<T>
 		
 		// Getting item and indices it as needed.
 		T temp = getAtIndex(index);
-		for(int i = index + 1 ; i < size ; i++)
-			array[i-1] = array[i];
+		System.arraycopy(array, index + 1, array, index, size - index - 1);
 		
 		// Removing item and returning it.
 		array[--size] = null;
@@ -290,7 +312,7 @@ public class ArrayList<T> extends Sequence<T>
 	 */
 	public boolean shouldDouble() 
 	{
-		return shouldDouble;
+		return growthPolicy == GrowthPolicy.DOUBLING;
 	}
 	
 	/**
@@ -300,15 +322,32 @@ public class ArrayList<T> extends Sequence<T>
 	 */
 	public void setDouble(boolean shouldDouble) 
 	{
-		this.shouldDouble = shouldDouble;
+		growthPolicy = shouldDouble ? GrowthPolicy.DOUBLING : GrowthPolicy.INCREMENTAL;
 	}
 	
 	/**
-	 * Reduces the capacity to match size, thus saving space. Note that it is the user's responsibility to ensure 
-	 * they do not call this method if the current size is zero and they are increasing capacity via doubling. 
-	 * Doing so will prevent the capacity from increasing, and will lead to an error.
+	 * @return Returns the policy deciding the new capacity whenever the array is full.
+	 */
+	public GrowthPolicy growthPolicy() 
+	{
+		return growthPolicy;
+	}
+	
+	/**
+	 * @param growthPolicy The new policy deciding the new capacity whenever the array is full.
+	 */
+	public void setGrowthPolicy(GrowthPolicy growthPolicy) 
+	{
+		if(growthPolicy == null)
+			throw new IllegalArgumentException("The growth policy cannot be null.");
+		
+		this.growthPolicy = growthPolicy;
+	}
+	
+	/**
+	 * Reduces the capacity to match size, thus saving space. The array can still grow again afterwards, even from a 
+	 * capacity of zero.
 	 */
-	@SuppressWarnings("unchecked")
 	public void trimToSize() 
 	{
 		// Do nothing if the size and capacity are equal.
@@ -316,12 +355,7 @@ public class ArrayList<T> extends Sequence<T>
 			return;
 		
 		// Otherwise create a correctly sized array and transfer all objects.
-		T[] temp = (T[]) (new Object[size]);
-		for(int i = 0 ; i < size ; i++)
-			temp[i] = array[i];
-		
-		// Assign new array.
-		array = temp;
+		resize(size);
 	}
 	
 	public int indexOf(T object) 
@@ -350,6 +384,83 @@ public class ArrayList<T> extends Sequence<T>
 		return indexOf(object) != -1;
 	}
 	
+	public void addAll(Sequence<T> sequence) 
+	{
+		// Handling exceptional cases.
+		if(sequence == null)
+			throw new IllegalArgumentException("Attempted to add null sequence to the ArrayList.");
+		
+		insertAll(size, sequence);
+	}
+	
+	@SuppressWarnings("unchecked")
+	public void insertAll(int index, Sequence<T> sequence) 
+	{
+		// Handling exceptional cases.
+		if(sequence == null)
+			throw new IllegalArgumentException("Attempted to add null sequence to the ArrayList.");
+		if(index < 0 || index > size)
+			throw new IndexOutOfBoundsException("Index is out of ArrayList bounds!");
+		
+		// Another ArrayList is copied straight from its array. When it is this list, the objects are saved first, 
+		// since the shift below moves them.
+		int count = sequence.size();
+		Object[] source = null;
+		if(sequence == this)
+			source = Arrays.copyOf(array, size);
+		else if(sequence instanceof ArrayList)
+			source = ((ArrayList<T>) sequence).array;
+		
+		// Resizing at most once and shifting everything after the index in one copy.
+		ensureCapacity(size + count);
+		System.arraycopy(array, index, array, index + count, size - index);
+		
+		// Filling the gap.
+		if(source != null)
+			System.arraycopy(source, 0, array, index, count);
+		else
+		{
+			int position = index;
+			for(T object : sequence)
+				array[position++] = object;
+		}
+		size += count;
+	}
+	
+	public void removeRange(int fromIndex, int toIndex) 
+	{
+		// Handling exceptional cases.
+		if(fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("Index is out of ArrayList bounds!");
+		
+		// Shifting everything after the range back in one copy and clearing the slots left behind.
+		System.arraycopy(array, toIndex, array, fromIndex, size - toIndex);
+		Arrays.fill(array, size - (toIndex - fromIndex), size, null);
+		size -= toIndex - fromIndex;
+	}
+	
+	public ArrayList<T> subsequence(int fromIndex, int toIndex) 
+	{
+		// Handling exceptional cases.
+		if(fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("Index is out of ArrayList bounds!");
+		
+		// The copy has exactly the room it needs and the same growth policy.
+		ArrayList<T> output = new ArrayList<T>(toIndex - fromIndex, growthPolicy);
+		System.arraycopy(array, fromIndex, output.array, 0, toIndex - fromIndex);
+		output.size = toIndex - fromIndex;
+		return output;
+	}
+	
+	/**
+	 * Removes every object but keeps the capacity.
+	 */
+	public void clear() 
+	{
+		Arrays.fill(array, 0, size, null);
+		size = 0;
+	}
+	
 	public Iterator<T> iterator()
 	{
 		// Anonymous iterator class.
@@ -0,0 +1,470 @@
+package basicstructures;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/** A resizable array used as a ring, so objects can be added and removed at both ends in amortized constant time
+ * while each position can still be accessed in constant time. This makes it a good fit under a Queue or a Stack. <br>
+ * The objects sit in a row that starts at the head index and wraps around the end of the array. The capacity is
+ * always a power of two, so wrapping an index is a single mask, and the array doubles when it is full. Adding or
+ * removing in the middle shifts whichever side of the index is shorter.
+ * @author Sobhan Mehrpour
+ * @param <T>
+ */
+public class CircularArrayList<T> extends Sequence<T>
+{
+
+	/**
+	 * The largest capacity the array can have, which is the largest power of two an int can hold.
+	 */
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	private T[] array;
+	private int head;
+	private int size;
+
+	/**
+	 * Default constructor. Has a starting capacity of 16.
+	 */
+	public CircularArrayList()
+	{
+		// Calls full constructor.
+		this(16);
+	}
+
+	/** Starting capacity is left up to the user.
+	 * @param startCapacity The initial capacity of the array. It is rounded up to a power of two.
+	 */
+	@SuppressWarnings("unchecked")
+	public CircularArrayList(int startCapacity)
+	{
+		// Handling exceptional cases.
+		if(startCapacity < 0)
+			throw new IllegalArgumentException("The start capacity cannot be negative.");
+
+		// Instantiating the attributes.
+		head = 0;
+		size = 0;
+		array = (T[])(new Object[tableSizeFor(startCapacity)]);
+	}
+
+	/** Returns the smallest power of two that can hold the given number of objects.
+	 * @param capacity The number of objects.
+	 * @return The capacity of the array.
+	 */
+	private static int tableSizeFor(int capacity)
+	{
+		if(capacity > MAXIMUM_CAPACITY)
+			throw new IllegalStateException("The CircularArrayList has reached its maximum capacity.");
+
+		return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+	}
+
+	/** Returns the position in the array of the object at the given index.
+	 * @param index The index, counted from the head.
+	 * @return The position in the array.
+	 */
+	private int physical(int index)
+	{
+		return (head + index) & (array.length - 1);
+	}
+
+	/** Copies a run of objects into another array, unwrapping them on the way.
+	 * @param destination The array copied into.
+	 * @param destinationIndex The position of the first object in the destination.
+	 * @param fromIndex The index of the first object copied.
+	 * @param count The number of objects copied.
+	 */
+	private void copyTo(Object[] destination, int destinationIndex, int fromIndex, int count)
+	{
+		int start = physical(fromIndex);
+		int first = Math.min(count, array.length - start);
+		System.arraycopy(array, start, destination, destinationIndex, first);
+		System.arraycopy(array, 0, destination, destinationIndex + first, count - first);
+	}
+
+	/** Moves every object into a new array large enough for the given number of objects, with the head at 0.
+	 * @param minimumCapacity The number of objects the array should be able to hold.
+	 */
+	@SuppressWarnings("unchecked")
+	private void resize(int minimumCapacity)
+	{
+		T[] temp = (T[])(new Object[tableSizeFor(minimumCapacity)]);
+		copyTo(temp, 0, 0, size);
+		array = temp;
+		head = 0;
+	}
+
+	/**
+	 * Private method for doubling the array when it is full.
+	 */
+	private void increaseCapacity()
+	{
+		if(size == array.length)
+			resize(size + 1);
+	}
+
+	private void checkIndex(int index, int bound)
+	{
+		if(index < 0 || index > bound)
+			throw new IndexOutOfBoundsException("Index is out of CircularArrayList bounds!");
+	}
+
+	public void addStart(T object)
+	{
+		// Handling exceptional cases.
+		if(object == null)
+			throw new IllegalArgumentException("Attempted to add null object to the start of the CircularArrayList.");
+
+		// Resizing if needed and moving the head back by one.
+		increaseCapacity();
+		head = (head - 1) & (array.length - 1);
+		array[head] = object;
+		size++;
+	}
+
+	public void addLast(T object)
+	{
+		// Handling exceptional cases.
+		if(object == null)
+			throw new IllegalArgumentException("Attempted to add null object to the end of the CircularArrayList.");
+
+		// Resizing if needed and adding after the last object.
+		increaseCapacity();
+		array[physical(size)] = object;
+		size++;
+	}
+
+	public void addAtIndex(T object, int index)
+	{
+		// Handling exceptional cases.
+		if(object == null)
+			throw new IllegalArgumentException("Attempted to add null object to the CircularArrayList.");
+		checkIndex(index, size);
+
+		increaseCapacity();
+		if(index < size / 2)
+		{
+			// Moving the head back and shifting everything before the index back with it.
+			head = (head - 1) & (array.length - 1);
+			for(int i = 0 ; i < index ; i++)
+				array[physical(i)] = array[physical(i + 1)];
+		}
+		else
+		{
+			// Shifting everything at or after the index forward.
+			for(int i = size ; i > index ; i--)
+				array[physical(i)] = array[physical(i - 1)];
+		}
+
+		// Adding object to the index.
+		array[physical(index)] = object;
+		size++;
+	}
+
+	public T getFirst()
+	{
+		// Returns null if this is empty; otherwise returns the object at the head.
+		if(isEmpty())
+			return null;
+		else
+			return array[head];
+	}
+
+	public T getLast()
+	{
+		// Returns null if this is empty; otherwise returns the object at the last index.
+		if(isEmpty())
+			return null;
+		else
+			return array[physical(size - 1)];
+	}
+
+	public T getAtIndex(int index)
+	{
+		// Handling exceptional cases.
+		checkIndex(index, size - 1);
+
+		return array[physical(index)];
+	}
+
+	public T removeFirst()
+	{
+		// Handling exceptional cases.
+		if(isEmpty())
+			return null;
+
+		// Removing the object at the head and moving the head forward.
+		T temp = array[head];
+		array[head] = null;
+		head = (head + 1) & (array.length - 1);
+		size--;
+		return temp;
+	}
+
+	public T removeLast()
+	{
+		// Handling exceptional cases.
+		if(isEmpty())
+			return null;
+
+		// Removing last object and returning it.
+		int last = physical(size - 1);
+		T temp = array[last];
+		array[last] = null;
+		size--;
+		return temp;
+	}
+
+	public T removeAtIndex(int index)
+	{
+		// Handling exceptional cases.
+		checkIndex(index, size - 1);
+
+		T temp = array[physical(index)];
+		if(index < size / 2)
+		{
+			// Shifting everything before the index forward and moving the head with it.
+			for(int i = index ; i > 0 ; i--)
+				array[physical(i)] = array[physical(i - 1)];
+			array[head] = null;
+			head = (head + 1) & (array.length - 1);
+		}
+		else
+		{
+			// Shifting everything after the index back.
+			for(int i = index ; i < size - 1 ; i++)
+				array[physical(i)] = array[physical(i + 1)];
+			array[physical(size - 1)] = null;
+		}
+		size--;
+		return temp;
+	}
+
+	public T replaceAtIndex(T object, int index)
+	{
+		// Handling exceptional cases.
+		if(object == null)
+			throw new IllegalArgumentException("Attempted to use null object in the CircularArrayList.");
+		checkIndex(index, size - 1);
+
+		// Replacing the object and returning the former object.
+		int position = physical(index);
+		T temp = array[position];
+		array[position] = object;
+		return temp;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/** Returns the number of objects the sequence can contain before having to resize.
+	 * @return The current capacity of the array.
+	 */
+	public int capacity()
+	{
+		return array.length;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public int indexOf(T object)
+	{
+		// Throw exception if the object is null.
+		if(object == null)
+			throw new IllegalArgumentException("Attempted to use null object in the CircularArrayList.");
+
+		// Return the index if a match is found.
+		for(int i = 0 ; i < size ; i++)
+		{
+			if(object.equals(array[physical(i)]))
+				return i;
+		}
+
+		// Return -1 if not found.
+		return -1;
+	}
+
+	public boolean contains(T object)
+	{
+		// Handling exceptional cases.
+		if(object == null)
+			throw new IllegalArgumentException("Attempted to use null object in the CircularArrayList.");
+
+		return indexOf(object) != -1;
+	}
+
+	public void addAll(Sequence<T> sequence)
+	{
+		// Handling exceptional cases.
+		if(sequence == null)
+			throw new IllegalArgumentException("Attempted to add null sequence to the CircularArrayList.");
+
+		insertAll(size, sequence);
+	}
+
+	@SuppressWarnings("unchecked")
+	public void insertAll(int index, Sequence<T> sequence)
+	{
+		// Handling exceptional cases.
+		if(sequence == null)
+			throw new IllegalArgumentException("Attempted to add null sequence to the CircularArrayList.");
+		checkIndex(index, size);
+
+		int count = sequence.size();
+		if(count == 0)
+			return;
+
+		// Laying out the objects before the index, the new ones, and the ones after the index in a new array.
+		T[] temp = (T[])(new Object[tableSizeFor(Math.max(array.length, size + count))]);
+		copyTo(temp, 0, 0, index);
+		if(sequence instanceof CircularArrayList)
+			((CircularArrayList<T>) sequence).copyTo(temp, index, 0, count);
+		else
+		{
+			int position = index;
+			for(T object : sequence)
+				temp[position++] = object;
+		}
+		copyTo(temp, index + count, index, size - index);
+
+		array = temp;
+		head = 0;
+		size += count;
+	}
+
+	public void removeRange(int fromIndex, int toIndex)
+	{
+		// Handling exceptional cases.
+		if(fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("Index is out of CircularArrayList bounds!");
+
+		int count = toIndex - fromIndex;
+		if(fromIndex < size - toIndex)
+		{
+			// Shifting everything before the range forward and moving the head with it.
+			for(int i = fromIndex - 1 ; i >= 0 ; i--)
+				array[physical(i + count)] = array[physical(i)];
+			for(int i = 0 ; i < count ; i++)
+				array[physical(i)] = null;
+			head = physical(count);
+		}
+		else
+		{
+			// Shifting everything after the range back.
+			for(int i = toIndex ; i < size ; i++)
+				array[physical(i - count)] = array[physical(i)];
+			for(int i = size - count ; i < size ; i++)
+				array[physical(i)] = null;
+		}
+		size -= count;
+	}
+
+	public CircularArrayList<T> subsequence(int fromIndex, int toIndex)
+	{
+		// Handling exceptional cases.
+		if(fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("Index is out of CircularArrayList bounds!");
+
+		CircularArrayList<T> output = new CircularArrayList<T>(toIndex - fromIndex);
+		copyTo(output.array, 0, fromIndex, toIndex - fromIndex);
+		output.size = toIndex - fromIndex;
+		return output;
+	}
+
+	/**
+	 * Removes every object but keeps the capacity.
+	 */
+	public void clear()
+	{
+		Arrays.fill(array, null);
+		head = 0;
+		size = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public boolean equals(Object anotherObject)
+	{
+		// Checking for null.
+		if(anotherObject == null)
+			return false;
+		// Checking if the object is the right class.
+		else if (anotherObject.getClass() != this.getClass())
+			return false;
+		else
+		{
+			// Casting and checking if sizes match.
+			CircularArrayList<T> anotherList = (CircularArrayList<T>) anotherObject;
+			if(this.size != anotherList.size)
+				return false;
+
+			// Check each index to make sure they are in the same order.
+			for(int i = 0 ; i < size ; i++)
+			{
+				if(! this.getAtIndex(i).equals(anotherList.getAtIndex(i)))
+					return false;
+			}
+
+			// Return true if the entire array was searched successfully.
+			return true;
+		}
+	}
+
+	public int hashCode()
+	{
+		// Hashing in logical order, so lists that are equal hash the same wherever their front sits in the array.
+		int hash = 1;
+		for(int i = 0 ; i < size ; i++)
+			hash = 31 * hash + array[physical(i)].hashCode();
+		return hash;
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+
+		// Looping through and adding objects to string.
+		for(int i = 0 ; i < size ; i++)
+		{
+			if(i != size - 1)
+				output.append(array[physical(i)].toString() + ", ");
+			else
+				output.append(array[physical(i)].toString() + " ");
+		}
+
+		output.append("]");
+		return output.toString();
+	}
+
+	public Iterator<T> iterator()
+	{
+		// Anonymous iterator class.
+		Iterator<T> temp = new Iterator<T>()
+		{
+			// Index, counted from the head.
+			private int currentIndex = 0;
+
+			// Valid next.
+			public boolean hasNext()
+			{
+				return currentIndex < size;
+			}
+
+			// Return current value and increment.
+			public T next()
+			{
+				if (!hasNext())
+					throw new IndexOutOfBoundsException("Iterator has no next!");
+
+				return array[physical(currentIndex++)];
+			}
+
+		};
+		return temp;
+	}
+}
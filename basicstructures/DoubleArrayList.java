@@ -0,0 +1,319 @@
+package basicstructures;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/** A resizable array of doubles. It offers the same operations as ArrayList, but keeps the values themselves in a
+ * double array instead of references to boxed Doubles, which takes a fraction of the memory and keeps neighbouring values
+ * next to each other. <br>
+ * Since a value cannot be null, asking an empty list for its first or last value throws an exception instead.
+ * @author Sobhan Mehrpour
+ */
+public class DoubleArrayList
+{
+
+	private GrowthPolicy growthPolicy;
+	private double[] array;
+	private int size;
+
+	/**
+	 * Default constructor. Grows by half when resizing. Has a starting capacity of 10.
+	 */
+	public DoubleArrayList()
+	{
+		// Calls full constructor.
+		this(10, GrowthPolicy.DEFAULT);
+	}
+
+	/** Starting capacity is left up to the user. The list will grow by half when resizing.
+	 * @param startCapacity The initial capacity of the array.
+	 */
+	public DoubleArrayList(int startCapacity)
+	{
+		// Calls full constructor.
+		this(startCapacity, GrowthPolicy.DEFAULT);
+	}
+
+	/** A full constructor that allows the user to decide both the start capacity and the means of resizing.
+	 * @param startCapacity The initial capacity of the array.
+	 * @param growthPolicy Decides the new capacity whenever the array is full.
+	 */
+	public DoubleArrayList(int startCapacity, GrowthPolicy growthPolicy)
+	{
+		// Handling exceptional cases.
+		if(startCapacity < 0)
+			throw new IllegalArgumentException("The start capacity cannot be negative.");
+		if(growthPolicy == null)
+			throw new IllegalArgumentException("The growth policy cannot be null.");
+
+		// Instantiating the attributes.
+		size = 0;
+		this.growthPolicy = growthPolicy;
+		array = new double[startCapacity];
+	}
+
+	/**
+	 * Private method for resizing the array when it is full. The new capacity is decided by the growth policy.
+	 */
+	private void increaseCapacity()
+	{
+		// Checks to see if resizing is needed or not.
+		if(size < capacity())
+			return;
+
+		array = Arrays.copyOf(array, growthPolicy.grow(array.length, size + 1));
+	}
+
+	/** Makes sure the array can hold the given number of values without resizing again.
+	 * @param minimumCapacity The number of values the array should be able to hold.
+	 */
+	public void ensureCapacity(int minimumCapacity)
+	{
+		if(minimumCapacity > capacity())
+			array = Arrays.copyOf(array, growthPolicy.grow(array.length, minimumCapacity));
+	}
+
+	private void checkNotEmpty()
+	{
+		if(isEmpty())
+			throw new IndexOutOfBoundsException("The DoubleArrayList is empty!");
+	}
+
+	private void checkIndex(int index, int bound)
+	{
+		if(index < 0 || index > bound)
+			throw new IndexOutOfBoundsException("Index is out of DoubleArrayList bounds!");
+	}
+
+	public void addLast(double value)
+	{
+		// Resizing if needed, adding value, and increasing size.
+		increaseCapacity();
+		array[size++] = value;
+	}
+
+	public void addStart(double value)
+	{
+		addAtIndex(value, 0);
+	}
+
+	public void addAtIndex(double value, int index)
+	{
+		// Handling exceptional cases.
+		checkIndex(index, size);
+
+		// Resizing if needed and shifting everything after the index.
+		increaseCapacity();
+		System.arraycopy(array, index, array, index + 1, size - index);
+
+		// Adding value to the index.
+		array[index] = value;
+		size++;
+	}
+
+	/** Adds every value of another list to the end of this one, resizing at most once.
+	 * @param list The list whose values are added. May be this list itself.
+	 */
+	public void addAll(DoubleArrayList list)
+	{
+		// Handling exceptional cases.
+		if(list == null)
+			throw new IllegalArgumentException("Attempted to add null list to the DoubleArrayList.");
+
+		int count = list.size;
+		ensureCapacity(size + count);
+		System.arraycopy(list.array, 0, array, size, count);
+		size += count;
+	}
+
+	public double getFirst()
+	{
+		checkNotEmpty();
+		return array[0];
+	}
+
+	public double getLast()
+	{
+		checkNotEmpty();
+		return array[size - 1];
+	}
+
+	public double getAtIndex(int index)
+	{
+		checkIndex(index, size - 1);
+		return array[index];
+	}
+
+	public double removeFirst()
+	{
+		checkNotEmpty();
+		return removeAtIndex(0);
+	}
+
+	public double removeLast()
+	{
+		checkNotEmpty();
+		return array[--size];
+	}
+
+	public double removeAtIndex(int index)
+	{
+		// Handling exceptional cases.
+		checkIndex(index, size - 1);
+
+		// Getting value and shifting everything after it back.
+		double temp = array[index];
+		System.arraycopy(array, index + 1, array, index, size - index - 1);
+		size--;
+		return temp;
+	}
+
+	/** Removes every value from fromIndex up to, but not including, toIndex.
+	 * @param fromIndex The index of the first value removed.
+	 * @param toIndex The index after the last value removed.
+	 */
+	public void removeRange(int fromIndex, int toIndex)
+	{
+		// Handling exceptional cases.
+		if(fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("Index is out of DoubleArrayList bounds!");
+
+		System.arraycopy(array, toIndex, array, fromIndex, size - toIndex);
+		size -= toIndex - fromIndex;
+	}
+
+	public double replaceAtIndex(double value, int index)
+	{
+		// Handling exceptional cases.
+		checkIndex(index, size - 1);
+
+		// Replacing the value and returning the former value.
+		double temp = array[index];
+		array[index] = value;
+		return temp;
+	}
+
+	public int indexOf(double value)
+	{
+		// Values are matched by their bits, the same way Double.equals does, so NaN can be found.
+		long bits = Double.doubleToLongBits(value);
+		for(int i = 0 ; i < size ; i++)
+		{
+			if(Double.doubleToLongBits(array[i]) == bits)
+				return i;
+		}
+
+		// Return -1 if not found.
+		return -1;
+	}
+
+	public boolean contains(double value)
+	{
+		return indexOf(value) != -1;
+	}
+
+	/** Performs the action on every value, in order, without boxing any of them.
+	 * @param action The action.
+	 */
+	public void forEach(DoubleConsumer action)
+	{
+		// Handling exceptional cases.
+		if(action == null)
+			throw new IllegalArgumentException("Attempted to use null action in the DoubleArrayList.");
+
+		for(int i = 0 ; i < size ; i++)
+			action.accept(array[i]);
+	}
+
+	/** Returns a copy of the values.
+	 * @return An array holding exactly the values of the list.
+	 */
+	public double[] toArray()
+	{
+		return Arrays.copyOf(array, size);
+	}
+
+	/**
+	 * Removes every value but keeps the capacity.
+	 */
+	public void clear()
+	{
+		size = 0;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/** Returns the number of values the list can contain before having to resize.
+	 * @return The current capacity of the array.
+	 */
+	public int capacity()
+	{
+		return array.length;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * @return Returns the policy deciding the new capacity whenever the array is full.
+	 */
+	public GrowthPolicy growthPolicy()
+	{
+		return growthPolicy;
+	}
+
+	/**
+	 * Reduces the capacity to match size, thus saving space.
+	 */
+	public void trimToSize()
+	{
+		if(size != capacity())
+			array = Arrays.copyOf(array, size);
+	}
+
+	public boolean equals(Object anotherObject)
+	{
+		// Checking for null and the class.
+		if(anotherObject == null)
+			return false;
+		else if (anotherObject.getClass() != this.getClass())
+			return false;
+		else
+		{
+			// Comparing the values in use, ignoring the spare capacity.
+			DoubleArrayList anotherList = (DoubleArrayList) anotherObject;
+			return Arrays.equals(array, 0, size, anotherList.array, 0, anotherList.size);
+		}
+	}
+
+	public int hashCode()
+	{
+		// Hashing the bits of each value, since equals compares them the same way.
+		int hash = 1;
+		for(int i = 0 ; i < size ; i++)
+			hash = 31 * hash + Long.hashCode(Double.doubleToLongBits(array[i]));
+		return hash;
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+
+		// Looping through and adding values to string.
+		for(int i = 0 ; i < size ; i++)
+		{
+			if(i != size - 1)
+				output.append(array[i] + ", ");
+			else
+				output.append(array[i] + " ");
+		}
+
+		output.append("]");
+		return output.toString();
+	}
+}
@@ -273,6 +273,123 @@ public class DoublyLinkedList<T> extends Sequence<T>
 		return (indexOf(object) != -1);
 	}
 
+	public void addAll(Sequence<T> sequence) 
+	{
+		// Handling exceptional cases.
+		if(sequence == null)
+			throw new IllegalArgumentException("Null value passed.");
+		
+		insertAll(size, sequence);
+	}
+	
+	public void insertAll(int index, Sequence<T> sequence) 
+	{
+		// Handling exceptional cases.
+		if(sequence == null)
+			throw new IllegalArgumentException("Null value passed.");
+		if(index < 0 || index > size)
+			throw new IndexOutOfBoundsException();
+		
+		// Copying the objects into a chain of their own, so the other sequence is read before this one changes.
+		Node first = null;
+		Node last = null;
+		int count = 0;
+		for(T object : sequence) 
+		{
+			Node node = new Node(last, null, object);
+			if(first == null)
+				first = node;
+			else
+				last.next = node;
+			last = node;
+			count++;
+		}
+		if(count == 0)
+			return;
+		
+		// Splicing the chain in between the node before the index and the node at it.
+		Node after = index == size ? null : nodeAt(index);
+		Node before = after == null ? tail : after.prev;
+		first.prev = before;
+		last.next = after;
+		if(before == null)
+			head = first;
+		else
+			before.next = first;
+		if(after == null)
+			tail = last;
+		else
+			after.prev = last;
+		size += count;
+	}
+	
+	public void removeRange(int fromIndex, int toIndex) 
+	{
+		// Handling exceptional cases.
+		if(fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException();
+		if(fromIndex == toIndex)
+			return;
+		
+		// Finding the nodes on either side of the range and joining them.
+		Node before = fromIndex == 0 ? null : nodeAt(fromIndex - 1);
+		Node after = toIndex == size ? null : nodeAt(toIndex);
+		if(before == null)
+			head = after;
+		else
+			before.next = after;
+		if(after == null)
+			tail = before;
+		else
+			after.prev = before;
+		size -= toIndex - fromIndex;
+	}
+	
+	public DoublyLinkedList<T> subsequence(int fromIndex, int toIndex) 
+	{
+		// Handling exceptional cases.
+		if(fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException();
+		
+		// Copying the range node by node.
+		DoublyLinkedList<T> output = new DoublyLinkedList<T>();
+		Node position = fromIndex == toIndex ? null : nodeAt(fromIndex);
+		for(int i = fromIndex ; i < toIndex ; i++) 
+		{
+			output.addLast(position.value);
+			position = position.next;
+		}
+		return output;
+	}
+	
+	public void clear() 
+	{
+		head = tail = null;
+		size = 0;
+	}
+	
+	/** Returns the node at the index, walking from whichever end is closer.
+	 * @param index The index. Must be within bounds.
+	 * @return The node.
+	 */
+	private Node nodeAt(int index) 
+	{
+		Node position;
+		if(index < size / 2) 
+		{
+			position = head;
+			for(int i = 0 ; i < index ; i++)
+				position = position.next;
+		}
+		else 
+		{
+			position = tail;
+			for(int i = size - 1 ; i > index ; i--)
+				position = position.prev;
+		}
+		return position;
+	}
+
 	public int size() 
 	{
 		return size;
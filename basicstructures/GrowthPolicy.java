@@ -0,0 +1,92 @@
+package basicstructures;
+
+/** Decides how much larger an array-backed sequence becomes when it runs out of room. <br>
+ * Geometric growth multiplies the capacity, so appending n objects copies O(n) of them in total and each append costs
+ * amortized O(1) time. Growing by a fixed number of slots wastes less memory but copies O(n<sup>2</sup>) objects over n
+ * appends. Capped growth is geometric until the steps would exceed a limit, which keeps the spare room of very large
+ * arrays bounded.
+ * @author Sobhan Mehrpour
+ */
+public interface GrowthPolicy
+{
+	/**
+	 * The largest capacity handed out, which leaves room for the header some virtual machines put in arrays.
+	 */
+	public static final int MAXIMUM_CAPACITY = Integer.MAX_VALUE - 8;
+
+	/**
+	 * Grows by half of the current capacity. This is the default of ArrayList.
+	 */
+	public static final GrowthPolicy DEFAULT = geometric(1.5);
+
+	/**
+	 * Doubles the capacity.
+	 */
+	public static final GrowthPolicy DOUBLING = geometric(2);
+
+	/**
+	 * Grows by a single slot at a time, so the array is never larger than it has to be.
+	 */
+	public static final GrowthPolicy INCREMENTAL = fixed(1);
+
+	/** Returns the new capacity of an array that needs more room.
+	 * @param capacity The current capacity.
+	 * @param minimumCapacity The capacity that is needed. Always larger than the current one.
+	 * @return The new capacity. At least minimumCapacity.
+	 */
+	public int grow(int capacity, int minimumCapacity);
+
+	/** Returns a policy that multiplies the capacity by a factor.
+	 * @param factor The factor. Must be greater than 1.
+	 * @return The policy.
+	 */
+	public static GrowthPolicy geometric(double factor)
+	{
+		if (!(factor > 1))
+			throw new IllegalArgumentException("The growth factor must be greater than 1.");
+
+		return (capacity, minimumCapacity) -> clamp((long) (capacity * factor), minimumCapacity);
+	}
+
+	/** Returns a policy that multiplies the capacity by a factor, but adds no more than a given number of slots at once.
+	 * @param factor The factor. Must be greater than 1.
+	 * @param maximumStep The most slots added by a single resize. Must be positive.
+	 * @return The policy.
+	 */
+	public static GrowthPolicy capped(double factor, int maximumStep)
+	{
+		if (!(factor > 1))
+			throw new IllegalArgumentException("The growth factor must be greater than 1.");
+		if (maximumStep <= 0)
+			throw new IllegalArgumentException("The maximum step must be positive.");
+
+		return (capacity, minimumCapacity) ->
+				clamp(Math.min((long) (capacity * factor), (long) capacity + maximumStep), minimumCapacity);
+	}
+
+	/** Returns a policy that adds the same number of slots every time.
+	 * @param step The number of slots added. Must be positive.
+	 * @return The policy.
+	 */
+	public static GrowthPolicy fixed(int step)
+	{
+		if (step <= 0)
+			throw new IllegalArgumentException("The step must be positive.");
+
+		return (capacity, minimumCapacity) -> clamp((long) capacity + step, minimumCapacity);
+	}
+
+	/** Keeps a proposed capacity between the needed one and MAXIMUM_CAPACITY. A capacity of 0 multiplied by any factor
+	 * stays 0, so the needed capacity is what lets an empty array grow at all.
+	 * @param proposed The capacity the policy asked for.
+	 * @param minimumCapacity The capacity that is needed.
+	 * @return The capacity to use.
+	 */
+	private static int clamp(long proposed, int minimumCapacity)
+	{
+		if (minimumCapacity < 0 || minimumCapacity > MAXIMUM_CAPACITY)
+			throw new OutOfMemoryError("The required array capacity is too large.");
+
+		return (int) Math.max(minimumCapacity, Math.min(proposed, MAXIMUM_CAPACITY));
+	}
+}
@@ -0,0 +1,318 @@
+package basicstructures;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/** A resizable array of ints. It offers the same operations as ArrayList, but keeps the values themselves in an int
+ * array instead of references to boxed Integers, which takes a fraction of the memory and keeps neighbouring values
+ * next to each other. <br>
+ * Since a value cannot be null, asking an empty list for its first or last value throws an exception instead.
+ * @author Sobhan Mehrpour
+ */
+public class IntArrayList
+{
+
+	private GrowthPolicy growthPolicy;
+	private int[] array;
+	private int size;
+
+	/**
+	 * Default constructor. Grows by half when resizing. Has a starting capacity of 10.
+	 */
+	public IntArrayList()
+	{
+		// Calls full constructor.
+		this(10, GrowthPolicy.DEFAULT);
+	}
+
+	/** Starting capacity is left up to the user. The list will grow by half when resizing.
+	 * @param startCapacity The initial capacity of the array.
+	 */
+	public IntArrayList(int startCapacity)
+	{
+		// Calls full constructor.
+		this(startCapacity, GrowthPolicy.DEFAULT);
+	}
+
+	/** A full constructor that allows the user to decide both the start capacity and the means of resizing.
+	 * @param startCapacity The initial capacity of the array.
+	 * @param growthPolicy Decides the new capacity whenever the array is full.
+	 */
+	public IntArrayList(int startCapacity, GrowthPolicy growthPolicy)
+	{
+		// Handling exceptional cases.
+		if(startCapacity < 0)
+			throw new IllegalArgumentException("The start capacity cannot be negative.");
+		if(growthPolicy == null)
+			throw new IllegalArgumentException("The growth policy cannot be null.");
+
+		// Instantiating the attributes.
+		size = 0;
+		this.growthPolicy = growthPolicy;
+		array = new int[startCapacity];
+	}
+
+	/**
+	 * Private method for resizing the array when it is full. The new capacity is decided by the growth policy.
+	 */
+	private void increaseCapacity()
+	{
+		// Checks to see if resizing is needed or not.
+		if(size < capacity())
+			return;
+
+		array = Arrays.copyOf(array, growthPolicy.grow(array.length, size + 1));
+	}
+
+	/** Makes sure the array can hold the given number of values without resizing again.
+	 * @param minimumCapacity The number of values the array should be able to hold.
+	 */
+	public void ensureCapacity(int minimumCapacity)
+	{
+		if(minimumCapacity > capacity())
+			array = Arrays.copyOf(array, growthPolicy.grow(array.length, minimumCapacity));
+	}
+
+	private void checkNotEmpty()
+	{
+		if(isEmpty())
+			throw new IndexOutOfBoundsException("The IntArrayList is empty!");
+	}
+
+	private void checkIndex(int index, int bound)
+	{
+		if(index < 0 || index > bound)
+			throw new IndexOutOfBoundsException("Index is out of IntArrayList bounds!");
+	}
+
+	public void addLast(int value)
+	{
+		// Resizing if needed, adding value, and increasing size.
+		increaseCapacity();
+		array[size++] = value;
+	}
+
+	public void addStart(int value)
+	{
+		addAtIndex(value, 0);
+	}
+
+	public void addAtIndex(int value, int index)
+	{
+		// Handling exceptional cases.
+		checkIndex(index, size);
+
+		// Resizing if needed and shifting everything after the index.
+		increaseCapacity();
+		System.arraycopy(array, index, array, index + 1, size - index);
+
+		// Adding value to the index.
+		array[index] = value;
+		size++;
+	}
+
+	/** Adds every value of another list to the end of this one, resizing at most once.
+	 * @param list The list whose values are added. May be this list itself.
+	 */
+	public void addAll(IntArrayList list)
+	{
+		// Handling exceptional cases.
+		if(list == null)
+			throw new IllegalArgumentException("Attempted to add null list to the IntArrayList.");
+
+		int count = list.size;
+		ensureCapacity(size + count);
+		System.arraycopy(list.array, 0, array, size, count);
+		size += count;
+	}
+
+	public int getFirst()
+	{
+		checkNotEmpty();
+		return array[0];
+	}
+
+	public int getLast()
+	{
+		checkNotEmpty();
+		return array[size - 1];
+	}
+
+	public int getAtIndex(int index)
+	{
+		checkIndex(index, size - 1);
+		return array[index];
+	}
+
+	public int removeFirst()
+	{
+		checkNotEmpty();
+		return removeAtIndex(0);
+	}
+
+	public int removeLast()
+	{
+		checkNotEmpty();
+		return array[--size];
+	}
+
+	public int removeAtIndex(int index)
+	{
+		// Handling exceptional cases.
+		checkIndex(index, size - 1);
+
+		// Getting value and shifting everything after it back.
+		int temp = array[index];
+		System.arraycopy(array, index + 1, array, index, size - index - 1);
+		size--;
+		return temp;
+	}
+
+	/** Removes every value from fromIndex up to, but not including, toIndex.
+	 * @param fromIndex The index of the first value removed.
+	 * @param toIndex The index after the last value removed.
+	 */
+	public void removeRange(int fromIndex, int toIndex)
+	{
+		// Handling exceptional cases.
+		if(fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("Index is out of IntArrayList bounds!");
+
+		System.arraycopy(array, toIndex, array, fromIndex, size - toIndex);
+		size -= toIndex - fromIndex;
+	}
+
+	public int replaceAtIndex(int value, int index)
+	{
+		// Handling exceptional cases.
+		checkIndex(index, size - 1);
+
+		// Replacing the value and returning the former value.
+		int temp = array[index];
+		array[index] = value;
+		return temp;
+	}
+
+	public int indexOf(int value)
+	{
+		// Return the index if a match is found.
+		for(int i = 0 ; i < size ; i++)
+		{
+			if(array[i] == value)
+				return i;
+		}
+
+		// Return -1 if not found.
+		return -1;
+	}
+
+	public boolean contains(int value)
+	{
+		return indexOf(value) != -1;
+	}
+
+	/** Performs the action on every value, in order, without boxing any of them.
+	 * @param action The action.
+	 */
+	public void forEach(IntConsumer action)
+	{
+		// Handling exceptional cases.
+		if(action == null)
+			throw new IllegalArgumentException("Attempted to use null action in the IntArrayList.");
+
+		for(int i = 0 ; i < size ; i++)
+			action.accept(array[i]);
+	}
+
+	/** Returns a copy of the values.
+	 * @return An array holding exactly the values of the list.
+	 */
+	public int[] toArray()
+	{
+		return Arrays.copyOf(array, size);
+	}
+
+	/**
+	 * Removes every value but keeps the capacity.
+	 */
+	public void clear()
+	{
+		size = 0;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/** Returns the number of values the list can contain before having to resize.
+	 * @return The current capacity of the array.
+	 */
+	public int capacity()
+	{
+		return array.length;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * @return Returns the policy deciding the new capacity whenever the array is full.
+	 */
+	public GrowthPolicy growthPolicy()
+	{
+		return growthPolicy;
+	}
+
+	/**
+	 * Reduces the capacity to match size, thus saving space.
+	 */
+	public void trimToSize()
+	{
+		if(size != capacity())
+			array = Arrays.copyOf(array, size);
+	}
+
+	public boolean equals(Object anotherObject)
+	{
+		// Checking for null and the class.
+		if(anotherObject == null)
+			return false;
+		else if (anotherObject.getClass() != this.getClass())
+			return false;
+		else
+		{
+			// Comparing the values in use, ignoring the spare capacity.
+			IntArrayList anotherList = (IntArrayList) anotherObject;
+			return Arrays.equals(array, 0, size, anotherList.array, 0, anotherList.size);
+		}
+	}
+
+	public int hashCode()
+	{
+		// Hashing the values in use only, like equals.
+		int hash = 1;
+		for(int i = 0 ; i < size ; i++)
+			hash = 31 * hash + array[i];
+		return hash;
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+
+		// Looping through and adding values to string.
+		for(int i = 0 ; i < size ; i++)
+		{
+			if(i != size - 1)
+				output.append(array[i] + ", ");
+			else
+				output.append(array[i] + " ");
+		}
+
+		output.append("]");
+		return output.toString();
+	}
+}
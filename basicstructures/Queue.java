@@ -1,6 +1,13 @@
 package basicstructures;
 
-/** A queue structure supporting basic enqueue/dequeue methods.
+import java.util.Arrays;
+
+/** A queue structure supporting basic enqueue/dequeue methods. <br>
+ * By default the back of the queue is the start of the sequence, so enqueue adds to the start and dequeue removes from
+ * the end. A queue can instead be oriented with its front at the start of the sequence, so enqueue adds to the end
+ * and dequeue removes from the start. That is the only orientation in which a SinglyLinkedList makes both operations
+ * constant time, so it is chosen automatically for one. The orientation does not show from outside: queues are
+ * compared in the order they would be dequeued, and always printed from back to front.
  * @author Sobhan Mehrpour
  * @param <T>
  */
@@ -8,15 +15,19 @@ public class Queue<T>
 {
 	private Sequence<T> list;
 	
+	// Whether the front of the queue is the start of the sequence rather than the end.
+	private boolean isFrontAtStart;
+	
 	/**
 	 * Default constructor that builds the queue with a doubly linked list.
 	 */
 	public Queue() 
 	{
 		list = new DoublyLinkedList<T>();
+		isFrontAtStart = false;
 	}
 	
-	/** Constructor that allows the user to decide their own sequence implementation (SinglyLinkedList, DoublyLinkedList, or ArrayList).
+	/** Constructor that allows the user to decide their own sequence implementation (SinglyLinkedList, DoublyLinkedList, ArrayList, or CircularArrayList).
 	 * @param sequence The type of sequence desired.
 	 */
 	public Queue(Sequence<T> sequence)
@@ -36,8 +47,26 @@ public class Queue<T>
 		{
 			list = new ArrayList<T>();
 		}
+		// Check for CircularArrayList.
+		else if (sequence.getClass() == (new CircularArrayList<T>()).getClass())
+		{
+			list = new CircularArrayList<T>();
+		}
 		else
 			throw new IllegalArgumentException("The argument did not match any known sequence implementations.");
+		
+		// A singly linked list can only remove from its start in constant time.
+		isFrontAtStart = list instanceof SinglyLinkedList;
+	}
+	
+	/** Constructor that allows the user to decide both the sequence implementation and which end of it is the front.
+	 * @param sequence The type of sequence desired.
+	 * @param isFrontAtStart Whether dequeue removes from the start of the sequence and enqueue adds to the end.
+	 */
+	public Queue(Sequence<T> sequence, boolean isFrontAtStart)
+	{
+		this(sequence);
+		this.isFrontAtStart = isFrontAtStart;
 	}
 	
 	/** Adds an object to the back of the queue.
@@ -47,7 +76,10 @@ public class Queue<T>
 	{
 		if(object == null)
 			throw new IllegalArgumentException("Null value passed.");
-		list.addStart(object);
+		if(isFrontAtStart)
+			list.addLast(object);
+		else
+			list.addStart(object);
 	}
 	
 	/** Returns and remove the object at the front of the queue.
@@ -55,7 +87,7 @@ public class Queue<T>
 	 */
 	public T dequeue()
 	{
-		return list.removeLast();
+		return isFrontAtStart ? list.removeFirst() : list.removeLast();
 	}
 	
 	/** Return the object at the front of the queue  the object that will next be returned with dequeue.
@@ -63,7 +95,7 @@ public class Queue<T>
 	 */
 	public T peekQueueFront()
 	{
-		return list.getLast();
+		return isFrontAtStart ? list.getFirst() : list.getLast();
 	}
 	
 	/** Return the object at the back of the queue  the object that was recently added with enqueue.
@@ -71,7 +103,15 @@ public class Queue<T>
 	 */
 	public T peekQueueBack()
 	{
-		return list.getFirst();
+		return isFrontAtStart ? list.getLast() : list.getFirst();
+	}
+	
+	/** Returns which end of the sequence is the front of the queue.
+	 * @return True if dequeue removes from the start of the sequence. False if it removes from the end.
+	 */
+	public boolean isFrontAtStart()
+	{
+		return isFrontAtStart;
 	}
 	
 	/** Returns the current size of the queue.
@@ -100,13 +140,39 @@ public class Queue<T>
 		else
 		{
 			Queue<T> anotherQueue = (Queue<T>) anotherObject;
-			return this.list.equals(anotherQueue.list);
+			return isListEqual(anotherQueue);
 		}
 	}
 	
 	public String toString()
 	{
-		return list.toString();
+		if(!isFrontAtStart)
+			return list.toString();
+		
+		// Printing a copy in the order of the default orientation, so the output does not depend on it.
+		Sequence<T> copy = list.subsequence(0, 0);
+		for(T object : backToFront())
+			copy.addLast(object);
+		return copy.toString();
+	}
+	
+	/** Returns the objects of the queue from the back to the front, which is the order of the sequence under the
+	 * default orientation.
+	 * @return The objects.
+	 */
+	@SuppressWarnings("unchecked")
+	private T[] backToFront()
+	{
+		T[] objects = (T[])(new Object[list.size()]);
+		int index = isFrontAtStart ? objects.length : 0;
+		for(T object : list)
+		{
+			if(isFrontAtStart)
+				objects[--index] = object;
+			else
+				objects[index++] = object;
+		}
+		return objects;
 	}
 	
 	protected boolean isListEqual(Sequence<T> sequence)
@@ -116,6 +182,11 @@ public class Queue<T>
 	
 	protected boolean isListEqual(Queue<T> otherQueue)
 	{
-		return list.equals(otherQueue.list);
+		if(isFrontAtStart == otherQueue.isFrontAtStart)
+			return list.equals(otherQueue.list);
+		
+		// The same objects are stored in opposite orders under the two orientations, so they are compared in the order
+		// they would be dequeued.
+		return list.getClass() == otherQueue.list.getClass() && Arrays.equals(backToFront(), otherQueue.backToFront());
 	}
 }
@@ -83,4 +83,36 @@ public abstract class Sequence<T>  implements Iterable<T>
 	 * @return True if the object is found in the sequence. False if the object is not found.
 	 */
 	abstract public boolean contains(T object);
+	
+	/** Adds every object of another sequence to the end of this one, in order. The other sequence is not changed and 
+	 * may be this sequence itself.
+	 * @param sequence The sequence whose objects are added.
+	 */
+	abstract public void addAll(Sequence<T> sequence);
+	
+	/** Pushes anything at or after index forward and inserts every object of another sequence there, in order. The 
+	 * other sequence is not changed and may be this sequence itself.
+	 * @param index The index the first object is inserted at.
+	 * @param sequence The sequence whose objects are inserted.
+	 */
+	abstract public void insertAll(int index, Sequence<T> sequence);
+	
+	/** Removes every object from fromIndex up to, but not including, toIndex.
+	 * @param fromIndex The index of the first object removed.
+	 * @param toIndex The index after the last object removed.
+	 */
+	abstract public void removeRange(int fromIndex, int toIndex);
+	
+	/** Returns a new sequence of the same kind holding the objects from fromIndex up to, but not including, toIndex. 
+	 * Changing it does not change this sequence.
+	 * @param fromIndex The index of the first object copied.
+	 * @param toIndex The index after the last object copied.
+	 * @return The new sequence.
+	 */
+	abstract public Sequence<T> subsequence(int fromIndex, int toIndex);
+	
+	/**
+	 * Removes every object from the sequence.
+	 */
+	abstract public void clear();
 }
@@ -2,7 +2,8 @@ package basicstructures;
 
 import java.util.Iterator;
 
-/** A singly linked list.
+/** A singly linked list. It keeps a reference to its last node, so adding to the end and reading the last object take
+ * constant time. Removing the last object still walks the list, since the node before it has to be found.
  * @author Sobhan Mehrpour
  * @param <T>
  */
@@ -11,6 +12,7 @@ public class SinglyLinkedList<T> extends Sequence<T>
 	// Attributes.
 	private int size;
 	private Node head;
+	private Node tail;
 	
 	/**
 	 * Default constructor.
@@ -18,7 +20,7 @@ public class SinglyLinkedList<T> extends Sequence<T>
 	public SinglyLinkedList() 
 	{
 		size = 0;
-		head = null;
+		head = tail = null;
 	}
 
 	public Iterator<T> iterator() 
@@ -56,6 +58,8 @@ public class SinglyLinkedList<T> extends Sequence<T>
 		
 		// Add to start and create new head.
 		head = new Node(head, object);
+		if(tail == null)
+			tail = head;
 		size++;
 	}
 
@@ -68,13 +72,9 @@ public class SinglyLinkedList<T> extends Sequence<T>
 			addStart(object);
 		else 
 		{
-			// Go to the end.
-			Node position = head;
-			for(int i = 1 ; i < size ; i++)
-				position = position.next;
-			
-			// Add new node.
-			position.next = new Node(null, object);
+			// Add new node after the tail.
+			tail.next = new Node(null, object);
+			tail = tail.next;
 			size++;
 		}
 	}
@@ -117,15 +117,7 @@ public class SinglyLinkedList<T> extends Sequence<T>
 		if(isEmpty())
 			return null;
 		else
-		{
-			// Go to the end.
-			Node position = head;
-			for(int i = 1 ; i < size ; i++)
-				position = position.next;
-			
-			// Return value.
-			return position.value;
-		}
+			return tail.value;
 	}
 
 	public T getAtIndex(int index) 
@@ -161,6 +153,8 @@ public class SinglyLinkedList<T> extends Sequence<T>
 			// Remove head, assign new head, and return the old head.
 			T temp = head.value;
 			head = head.next;
+			if(head == null)
+				tail = null;
 			size--;
 			return temp;
 		}
@@ -183,6 +177,7 @@ public class SinglyLinkedList<T> extends Sequence<T>
 			// Remove the node and return it.
 			T temp = position.next.value;
 			position.next = null;
+			tail = position;
 			size--;
 			return temp;
 		}
@@ -276,6 +271,122 @@ public class SinglyLinkedList<T> extends Sequence<T>
 		return (indexOf(object) != -1);
 	}
 	
+	public void addAll(Sequence<T> sequence) 
+	{
+		if(sequence == null)
+			throw new IllegalArgumentException("Null value passed!");
+		
+		insertAll(size, sequence);
+	}
+
+	public void insertAll(int index, Sequence<T> sequence) 
+	{
+		if(sequence == null)
+			throw new IllegalArgumentException("Null value passed!");
+		if(index < 0 || index > size)
+			throw new IndexOutOfBoundsException();
+		
+		// Copy the objects into a chain of their own, so the other sequence is read before this one changes.
+		Node first = null;
+		Node last = null;
+		int count = 0;
+		for(T object : sequence) 
+		{
+			Node node = new Node(null, object);
+			if(first == null)
+				first = node;
+			else
+				last.next = node;
+			last = node;
+			count++;
+		}
+		if(count == 0)
+			return;
+		
+		// Splice the chain in after the node before the index.
+		if(index == 0) 
+		{
+			last.next = head;
+			head = first;
+		}
+		else if(index == size) 
+		{
+			tail.next = first;
+		}
+		else 
+		{
+			Node position = head;
+			for(int i = 1 ; i < index ; i++)
+				position = position.next;
+			last.next = position.next;
+			position.next = first;
+		}
+		if(last.next == null)
+			tail = last;
+		size += count;
+	}
+
+	public void removeRange(int fromIndex, int toIndex) 
+	{
+		if(fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException();
+		if(fromIndex == toIndex)
+			return;
+		
+		// Go to the node before the range, then to the node after it.
+		Node before = null;
+		Node after = head;
+		for(int i = 0 ; i < toIndex ; i++) 
+		{
+			if(i == fromIndex - 1)
+				before = after;
+			after = after.next;
+		}
+		
+		// Unlink the whole range at once.
+		if(before == null)
+			head = after;
+		else
+			before.next = after;
+		if(after == null)
+			tail = before;
+		size -= toIndex - fromIndex;
+	}
+
+	public SinglyLinkedList<T> subsequence(int fromIndex, int toIndex) 
+	{
+		if(fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException();
+		
+		// Go to the start of the range.
+		Node position = head;
+		for(int i = 0 ; i < fromIndex ; i++)
+			position = position.next;
+		
+		// Copy the range node by node.
+		SinglyLinkedList<T> output = new SinglyLinkedList<T>();
+		Node last = null;
+		for(int i = fromIndex ; i < toIndex ; i++) 
+		{
+			Node node = new Node(null, position.value);
+			if(last == null)
+				output.head = node;
+			else
+				last.next = node;
+			last = node;
+			position = position.next;
+		}
+		output.tail = last;
+		output.size = toIndex - fromIndex;
+		return output;
+	}
+
+	public void clear() 
+	{
+		head = tail = null;
+		size = 0;
+	}
+	
 	public String toString() 
 	{
 		if(isEmpty())
@@ -17,7 +17,7 @@ public class Stack<T>
 	}
 	
 	/** A constructor to allow the user to create the stack with their desired sequence 
-	 * (ArrayList, SinglyLinkedList, or DoublyLinkedList). 
+	 * (ArrayList, CircularArrayList, SinglyLinkedList, or DoublyLinkedList). 
 	 * @param sequence The type of sequence desired.
 	 */
 	public Stack(Sequence<T> sequence)
@@ -37,6 +37,11 @@ public class Stack<T>
 		{
 			list = new ArrayList<T>();
 		}
+		// Check for CircularArrayList.
+		else if (sequence.getClass() == (new CircularArrayList<T>()).getClass())
+		{
+			list = new CircularArrayList<T>();
+		}
 		else
 			throw new IllegalArgumentException("The argument did not match any known sequence implementations.");
 	}
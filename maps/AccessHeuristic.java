@@ -0,0 +1,31 @@
+package maps;
+
+/** The ways an UnsortedMap can reorder its list as keys are accessed, so that frequently used keys are found after a
+ * shorter walk.
+ * @author Sobhan Mehrpour
+ */
+public enum AccessHeuristic
+{
+	/**
+	 * The list is never reordered.
+	 */
+	NONE,
+
+	/**
+	 * An accessed entry is moved to the front. Adapts quickly when the set of popular keys changes, but a single access
+	 * to a rare key pushes every other entry back by one.
+	 */
+	MOVE_TO_FRONT,
+
+	/**
+	 * An accessed entry swaps places with the one in front of it. Popular keys move forward slowly but stay there, so
+	 * it does best when the popular keys change rarely.
+	 */
+	TRANSPOSE,
+
+	/**
+	 * Every entry counts its accesses, and the list is kept in decreasing order of the counts. New entries start at the
+	 * back.
+	 */
+	COUNT
+}
@@ -0,0 +1,570 @@
+package maps;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import priorityqueues.Entry;
+
+/** A sorted map stored as a B+ tree. Every entry lives in a leaf, inner nodes only hold separator keys, and the leaves
+ * are linked left to right, so put and remove take O(log n) while ordered iteration and range scans walk the leaf
+ * arrays in sequence.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class BPlusTreeMap <K extends Comparable<K>, V> extends Map<K,V> implements Iterable<Entry<K,V>>
+{
+	/**
+	 * The fan-out used by the default constructor.
+	 */
+	private static final int DEFAULT_ORDER = 64;
+
+	/**
+	 * The smallest fan-out the tree can work with.
+	 */
+	private static final int MINIMUM_ORDER = 3;
+
+	// The maximum number of entries in a leaf and children of an inner node.
+	private int order;
+
+	// The smallest number of entries a leaf, and keys an inner node, may have unless it is the root.
+	private int minimumLeafSize;
+	private int minimumInnerSize;
+
+	private Node root;
+
+	// Set by the recursive insert whenever a node splits.
+	private K splitKey;
+	private Node splitNode;
+
+	/**
+	 * Default constructor. Uses a fan-out of 64.
+	 */
+	public BPlusTreeMap()
+	{
+		this(DEFAULT_ORDER);
+	}
+
+	/** Fan-out constructor.
+	 * @param order The maximum number of entries in a leaf and children of an inner node. Must be at least 3.
+	 */
+	public BPlusTreeMap(int order)
+	{
+		if (order < MINIMUM_ORDER)
+			throw new IllegalArgumentException("The order of the tree must be at least " + MINIMUM_ORDER + ".");
+
+		this.order = order;
+		minimumLeafSize = order / 2;
+		minimumInnerSize = (order - 1) / 2;
+		root = new Leaf();
+	}
+
+	/** Accessor for the fan-out.
+	 * @return The maximum number of entries in a leaf and children of an inner node.
+	 */
+	public int order()
+	{
+		return order;
+	}
+
+	public Entry<K, V> get(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+
+		Leaf leaf = findLeaf(key);
+		int index = leaf.indexOf(key);
+		return index < 0 ? null : leaf.entries[index];
+	}
+
+	/** Inserts a new entry into the map. If the key is already in the map, its value is replaced instead.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
+	public void put(K key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Cannot pass null values to map.");
+
+		splitNode = null;
+		if (!insert(root, key, value))
+			return;
+		incrementSize();
+
+		// Growing the tree upwards when the root splits.
+		if (splitNode != null)
+		{
+			Inner newRoot = new Inner();
+			newRoot.keys[0] = splitKey;
+			newRoot.children[0] = root;
+			newRoot.children[1] = splitNode;
+			newRoot.count = 1;
+			root = newRoot;
+			splitNode = null;
+		}
+	}
+
+	public Entry<K, V> remove(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+
+		Entry<K,V> removed = delete(root, key);
+		if (removed == null)
+			return null;
+		decrementSize();
+
+		// Shrinking the tree when the root is left with a single child.
+		if (root instanceof BPlusTreeMap.Inner && root.count == 0)
+			root = ((Inner) root).children[0];
+		return removed;
+	}
+
+	/** Walks from the root down to the leaf that should hold the key.
+	 * @param key The key.
+	 * @return The leaf.
+	 */
+	private Leaf findLeaf(K key)
+	{
+		Node node = root;
+		while (node instanceof BPlusTreeMap.Inner)
+		{
+			Inner inner = (Inner) node;
+			node = inner.children[inner.childIndex(key)];
+		}
+		return (Leaf) node;
+	}
+
+	/** Recursively inserts into the subtree. If the node overflows, it is split and the new right half is reported
+	 * through splitKey and splitNode.
+	 * @param node The root of the subtree.
+	 * @param key The key.
+	 * @param value The value.
+	 * @return True if a new entry was added. False if an existing value was replaced.
+	 */
+	private boolean insert(Node node, K key, V value)
+	{
+		if (node instanceof BPlusTreeMap.Leaf)
+		{
+			Leaf leaf = (Leaf) node;
+			int index = leaf.indexOf(key);
+			if (index >= 0)
+			{
+				leaf.entries[index].setValue(value);
+				return false;
+			}
+
+			leaf.insertAt(-index - 1, new Entry<>(key, value));
+			if (leaf.count > order)
+				splitLeaf(leaf);
+			return true;
+		}
+
+		Inner inner = (Inner) node;
+		int childIndex = inner.childIndex(key);
+		if (!insert(inner.children[childIndex], key, value))
+			return false;
+
+		// Taking in the right half of a child that split.
+		if (splitNode != null)
+		{
+			inner.insertAt(childIndex, splitKey, splitNode);
+			splitNode = null;
+			if (inner.count + 1 > order)
+				splitInner(inner);
+		}
+		return true;
+	}
+
+	private void splitLeaf(Leaf leaf)
+	{
+		int middle = leaf.count / 2;
+		Leaf right = new Leaf();
+		right.count = leaf.count - middle;
+		System.arraycopy(leaf.entries, middle, right.entries, 0, right.count);
+		Arrays.fill(leaf.entries, middle, leaf.count, null);
+		leaf.count = middle;
+
+		// Keeping the leaves linked in key order.
+		right.next = leaf.next;
+		leaf.next = right;
+
+		splitKey = right.entries[0].getKey();
+		splitNode = right;
+	}
+
+	private void splitInner(Inner inner)
+	{
+		// The middle key moves up to the parent rather than into either half.
+		int middle = inner.count / 2;
+		Inner right = new Inner();
+		right.count = inner.count - middle - 1;
+		System.arraycopy(inner.keys, middle + 1, right.keys, 0, right.count);
+		System.arraycopy(inner.children, middle + 1, right.children, 0, right.count + 1);
+
+		splitKey = inner.keys[middle];
+		Arrays.fill(inner.keys, middle, inner.count, null);
+		Arrays.fill(inner.children, middle + 1, inner.count + 1, null);
+		inner.count = middle;
+
+		splitNode = right;
+	}
+
+	/** Recursively deletes from the subtree and repairs any child that is left with too few entries.
+	 * @param node The root of the subtree.
+	 * @param key The key.
+	 * @return The removed entry. Returns null if the key was not found.
+	 */
+	private Entry<K,V> delete(Node node, K key)
+	{
+		if (node instanceof BPlusTreeMap.Leaf)
+		{
+			Leaf leaf = (Leaf) node;
+			int index = leaf.indexOf(key);
+			return index < 0 ? null : leaf.removeAt(index);
+		}
+
+		Inner inner = (Inner) node;
+		int childIndex = inner.childIndex(key);
+		Node child = inner.children[childIndex];
+		Entry<K,V> removed = delete(child, key);
+
+		if (removed != null && child.count < (child instanceof BPlusTreeMap.Leaf ? minimumLeafSize : minimumInnerSize))
+			repair(inner, childIndex);
+		return removed;
+	}
+
+	/** Fixes an underfull child by borrowing from a sibling, or by merging with one when neither can spare anything.
+	 * @param parent The parent of the child.
+	 * @param childIndex The index of the underfull child.
+	 */
+	private void repair(Inner parent, int childIndex)
+	{
+		Node child = parent.children[childIndex];
+		Node left = childIndex > 0 ? parent.children[childIndex - 1] : null;
+		Node right = childIndex < parent.count ? parent.children[childIndex + 1] : null;
+		int minimum = child instanceof BPlusTreeMap.Leaf ? minimumLeafSize : minimumInnerSize;
+
+		// Case 1: The left sibling can spare one.
+		if (left != null && left.count > minimum)
+		{
+			if (child instanceof BPlusTreeMap.Leaf)
+			{
+				Leaf leftLeaf = (Leaf) left;
+				Leaf childLeaf = (Leaf) child;
+				childLeaf.insertAt(0, leftLeaf.removeAt(leftLeaf.count - 1));
+				parent.keys[childIndex - 1] = childLeaf.entries[0].getKey();
+			}
+			else
+			{
+				// Rotating through the parent: its separator comes down and the sibling's last key goes up.
+				Inner leftInner = (Inner) left;
+				Inner childInner = (Inner) child;
+				System.arraycopy(childInner.keys, 0, childInner.keys, 1, childInner.count);
+				System.arraycopy(childInner.children, 0, childInner.children, 1, childInner.count + 1);
+				childInner.keys[0] = parent.keys[childIndex - 1];
+				childInner.children[0] = leftInner.children[leftInner.count];
+				childInner.count++;
+
+				parent.keys[childIndex - 1] = leftInner.keys[leftInner.count - 1];
+				leftInner.keys[leftInner.count - 1] = null;
+				leftInner.children[leftInner.count] = null;
+				leftInner.count--;
+			}
+		}
+		// Case 2: The right sibling can spare one.
+		else if (right != null && right.count > minimum)
+		{
+			if (child instanceof BPlusTreeMap.Leaf)
+			{
+				Leaf rightLeaf = (Leaf) right;
+				Leaf childLeaf = (Leaf) child;
+				childLeaf.insertAt(childLeaf.count, rightLeaf.removeAt(0));
+				parent.keys[childIndex] = rightLeaf.entries[0].getKey();
+			}
+			else
+			{
+				Inner rightInner = (Inner) right;
+				Inner childInner = (Inner) child;
+				childInner.keys[childInner.count] = parent.keys[childIndex];
+				childInner.children[childInner.count + 1] = rightInner.children[0];
+				childInner.count++;
+
+				parent.keys[childIndex] = rightInner.keys[0];
+				System.arraycopy(rightInner.keys, 1, rightInner.keys, 0, rightInner.count - 1);
+				System.arraycopy(rightInner.children, 1, rightInner.children, 0, rightInner.count);
+				rightInner.keys[rightInner.count - 1] = null;
+				rightInner.children[rightInner.count] = null;
+				rightInner.count--;
+			}
+		}
+		// Case 3: Merging the child into its left sibling.
+		else if (left != null)
+		{
+			merge(parent, childIndex - 1);
+		}
+		// Case 4: Merging the right sibling into the child.
+		else
+		{
+			merge(parent, childIndex);
+		}
+	}
+
+	/** Merges two adjacent children into the left one and removes the separator between them from the parent.
+	 * @param parent The parent.
+	 * @param leftIndex The index of the left child.
+	 */
+	private void merge(Inner parent, int leftIndex)
+	{
+		Node left = parent.children[leftIndex];
+		Node right = parent.children[leftIndex + 1];
+
+		if (left instanceof BPlusTreeMap.Leaf)
+		{
+			Leaf leftLeaf = (Leaf) left;
+			Leaf rightLeaf = (Leaf) right;
+			System.arraycopy(rightLeaf.entries, 0, leftLeaf.entries, leftLeaf.count, rightLeaf.count);
+			leftLeaf.count += rightLeaf.count;
+			leftLeaf.next = rightLeaf.next;
+		}
+		else
+		{
+			// The separator comes down between the two halves.
+			Inner leftInner = (Inner) left;
+			Inner rightInner = (Inner) right;
+			leftInner.keys[leftInner.count] = parent.keys[leftIndex];
+			System.arraycopy(rightInner.keys, 0, leftInner.keys, leftInner.count + 1, rightInner.count);
+			System.arraycopy(rightInner.children, 0, leftInner.children, leftInner.count + 1, rightInner.count + 1);
+			leftInner.count += rightInner.count + 1;
+		}
+
+		parent.removeAt(leftIndex);
+	}
+
+	/** Returns an iterator over every entry in key order.
+	 * @return The iterator.
+	 */
+	public Iterator<Entry<K,V>> iterator()
+	{
+		return new LeafIterator(firstLeaf(), 0, null);
+	}
+
+	private Leaf firstLeaf()
+	{
+		Node node = root;
+		while (node instanceof BPlusTreeMap.Inner)
+			node = ((Inner) node).children[0];
+		return (Leaf) node;
+	}
+
+	/** Returns the entries with keys in the range [from, to) in key order. The entries are not copied; the range is
+	 * walked lazily through the linked leaves.
+	 * @param from The smallest key included. Null means the range has no lower bound.
+	 * @param to The first key excluded. Null means the range has no upper bound.
+	 * @return The entries in the range.
+	 */
+	public Iterable<Entry<K,V>> range(K from, K to)
+	{
+		if (from != null && to != null && from.compareTo(to) > 0)
+			throw new IllegalArgumentException("The start of the range cannot be after its end.");
+
+		return new Iterable<Entry<K,V>>()
+		{
+			public Iterator<Entry<K,V>> iterator()
+			{
+				if (from == null)
+					return new LeafIterator(firstLeaf(), 0, to);
+
+				Leaf leaf = findLeaf(from);
+				int index = leaf.indexOf(from);
+				return new LeafIterator(leaf, index < 0 ? -index - 1 : index, to);
+			}
+		};
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+
+		// Looping through and adding entries to string.
+		Iterator<Entry<K,V>> iterator = iterator();
+		while (iterator.hasNext())
+		{
+			output.append(iterator.next().toString());
+			output.append(iterator.hasNext() ? ", " : " ");
+		}
+
+		output.append("]");
+		return output.toString();
+	}
+
+	/** Iterates along the linked leaves, starting at a given position.
+	 * @author Sobhan Mehrpour
+	 */
+	private class LeafIterator implements Iterator<Entry<K,V>>
+	{
+		private Leaf leaf;
+		private int index;
+
+		// The first key not returned. Null means the iterator runs to the last leaf.
+		private K end;
+
+		public LeafIterator(Leaf leaf, int index, K end)
+		{
+			this.leaf = leaf;
+			this.index = index;
+			this.end = end;
+			skipExhaustedLeaves();
+		}
+
+		private void skipExhaustedLeaves()
+		{
+			while (leaf != null && index >= leaf.count)
+			{
+				leaf = leaf.next;
+				index = 0;
+			}
+		}
+
+		public boolean hasNext()
+		{
+			return leaf != null && (end == null || leaf.entries[index].getKey().compareTo(end) < 0);
+		}
+
+		public Entry<K,V> next()
+		{
+			if (!hasNext())
+				throw new IndexOutOfBoundsException("Iterator has no next!");
+
+			Entry<K,V> temp = leaf.entries[index++];
+			skipExhaustedLeaves();
+			return temp;
+		}
+	}
+
+	/** Common part of leaves and inner nodes.
+	 * @author Sobhan Mehrpour
+	 */
+	private abstract class Node
+	{
+		// The number of entries in a leaf, or the number of keys in an inner node.
+		protected int count;
+	}
+
+	/** A leaf holding entries in key order.
+	 * @author Sobhan Mehrpour
+	 */
+	private class Leaf extends Node
+	{
+		private Entry<K,V>[] entries;
+		private Leaf next;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		public Leaf()
+		{
+			// One spare slot lets the leaf overflow briefly before it is split.
+			entries = (Entry<K,V>[]) new Entry[order + 1];
+			count = 0;
+		}
+
+		/** Binary search for the key.
+		 * @param key The key.
+		 * @return The index of the key. Returns -(insertion point) - 1 if the key is not in the leaf.
+		 */
+		public int indexOf(K key)
+		{
+			int low = 0;
+			int high = count - 1;
+			while (low <= high)
+			{
+				int middle = (low + high) >>> 1;
+				int comparison = key.compareTo(entries[middle].getKey());
+				if (comparison == 0)
+					return middle;
+				else if (comparison < 0)
+					high = middle - 1;
+				else
+					low = middle + 1;
+			}
+			return -low - 1;
+		}
+
+		public void insertAt(int index, Entry<K,V> entry)
+		{
+			System.arraycopy(entries, index, entries, index + 1, count - index);
+			entries[index] = entry;
+			count++;
+		}
+
+		public Entry<K,V> removeAt(int index)
+		{
+			Entry<K,V> temp = entries[index];
+			System.arraycopy(entries, index + 1, entries, index, count - index - 1);
+			entries[--count] = null;
+			return temp;
+		}
+	}
+
+	/** An inner node. Key i is the smallest key that can be found under child i + 1.
+	 * @author Sobhan Mehrpour
+	 */
+	private class Inner extends Node
+	{
+		private K[] keys;
+		private Node[] children;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		public Inner()
+		{
+			// One spare slot lets the node overflow briefly before it is split.
+			keys = (K[]) new Comparable[order];
+			children = (Node[]) new BPlusTreeMap.Node[order + 1];
+			count = 0;
+		}
+
+		/** Returns the index of the child whose subtree covers the key.
+		 * @param key The key.
+		 * @return The index of the first key that is greater than the given key.
+		 */
+		public int childIndex(K key)
+		{
+			int low = 0;
+			int high = count;
+			while (low < high)
+			{
+				int middle = (low + high) >>> 1;
+				if (key.compareTo(keys[middle]) < 0)
+					high = middle;
+				else
+					low = middle + 1;
+			}
+			return low;
+		}
+
+		/** Inserts the separator and the child to its right after the given child.
+		 * @param childIndex The index of the child that split.
+		 * @param key The separator.
+		 * @param child The new child.
+		 */
+		public void insertAt(int childIndex, K key, Node child)
+		{
+			System.arraycopy(keys, childIndex, keys, childIndex + 1, count - childIndex);
+			System.arraycopy(children, childIndex + 1, children, childIndex + 2, count - childIndex);
+			keys[childIndex] = key;
+			children[childIndex + 1] = child;
+			count++;
+		}
+
+		/** Removes a separator and the child to its right.
+		 * @param keyIndex The index of the separator.
+		 */
+		public void removeAt(int keyIndex)
+		{
+			System.arraycopy(keys, keyIndex + 1, keys, keyIndex, count - keyIndex - 1);
+			System.arraycopy(children, keyIndex + 2, children, keyIndex + 1, count - keyIndex - 1);
+			keys[count - 1] = null;
+			children[count] = null;
+			count--;
+		}
+	}
+}
@@ -0,0 +1,614 @@
+package maps;
+
+import priorityqueues.Entry;
+
+/** A map with a maximum size that evicts entries on its own to stay within it. The size is either the number of
+ * entries or, when a Weigher is given, the sum of their weights. Which entry is evicted is decided by an
+ * EvictionPolicy. <br>
+ * Entries are found through a HashMap index and kept in doubly linked lists whose nodes are part of the entries
+ * themselves, so get, put, remove, and every eviction take O(1) time no matter the policy. The number of hits, misses,
+ * and evictions is counted so the policy and maximum size can be tuned.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class CacheMap <K extends Comparable<K>, V> extends Map<K,V>
+{
+	/**
+	 * The share of the maximum size given to the admission window under TINY_LFU.
+	 */
+	private static final double WINDOW_RATIO = 0.01;
+
+	/**
+	 * The share of the main cache given to the protected segment under TINY_LFU.
+	 */
+	private static final double PROTECTED_RATIO = 0.8;
+
+	private final HashMap<K, Node> index;
+	private final Policy policy;
+	private final EvictionPolicy evictionPolicy;
+	private final Weigher<K, V> weigher;
+
+	private final long maximumWeight;
+	private long weight;
+
+	// Statistics.
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	/** Creates an LRU cache that holds at most the given number of entries.
+	 * @param maximumSize The maximum number of entries.
+	 */
+	public CacheMap(long maximumSize)
+	{
+		this(maximumSize, EvictionPolicy.LRU);
+	}
+
+	/** Creates a cache that holds at most the given number of entries.
+	 * @param maximumSize The maximum number of entries.
+	 * @param evictionPolicy How the entry to evict is chosen.
+	 */
+	public CacheMap(long maximumSize, EvictionPolicy evictionPolicy)
+	{
+		this(maximumSize, evictionPolicy, null);
+	}
+
+	/** Creates a cache whose entries may not weigh more than the given maximum in total.
+	 * @param maximumWeight The maximum total weight.
+	 * @param evictionPolicy How the entry to evict is chosen.
+	 * @param weigher Computes the weight of each entry. Every entry weighs 1 if this is null.
+	 */
+	public CacheMap(long maximumWeight, EvictionPolicy evictionPolicy, Weigher<K, V> weigher)
+	{
+		// Handling exceptional cases.
+		if (maximumWeight < 0)
+			throw new IllegalArgumentException("The maximum size cannot be negative.");
+		if (evictionPolicy == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		this.maximumWeight = maximumWeight;
+		this.evictionPolicy = evictionPolicy;
+		this.weigher = weigher;
+		index = new HashMap<>();
+		weight = 0;
+
+		switch (evictionPolicy)
+		{
+		case LFU:
+			policy = new LfuPolicy();
+			break;
+		case TINY_LFU:
+			policy = new TinyLfuPolicy();
+			break;
+		default:
+			policy = new LruPolicy();
+			break;
+		}
+	}
+
+	private int weigh(K key, V value)
+	{
+		if (weigher == null)
+			return 1;
+
+		int entryWeight = weigher.weigh(key, value);
+		if (entryWeight < 0)
+			throw new IllegalArgumentException("The weight of an entry cannot be negative.");
+		return entryWeight;
+	}
+
+	/** Returns the entry with the given key and records the access with the eviction policy. Changing the value of
+	 * the returned entry directly does not change its weight.
+	 * @param key The key.
+	 * @return The entry. Returns null if the key is not in the cache.
+	 */
+	public Entry<K, V> get(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		Entry<K, Node> found = index.get(key);
+		if (found == null)
+		{
+			missCount++;
+			policy.onMiss(key);
+			return null;
+		}
+
+		hitCount++;
+		Node node = found.getValue();
+		policy.onAccess(node);
+		return node.entry;
+	}
+
+	/** Inserts a new entry into the cache, or replaces the value if the key is already in it. Entries are then
+	 * evicted until the cache is back within its maximum size, which may include the entry that was just put.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
+	public void put(K key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int entryWeight = weigh(key, value);
+		Entry<K, Node> found = index.get(key);
+		if (found != null)
+		{
+			Node node = found.getValue();
+			node.entry.setValue(value);
+			policy.onUpdate(node, entryWeight - node.weight);
+			weight += entryWeight - node.weight;
+			node.weight = entryWeight;
+			policy.onAccess(node);
+		}
+		else
+		{
+			Node node = new Node(new Entry<>(key, value), entryWeight);
+			index.put(key, node);
+			incrementSize();
+			weight += entryWeight;
+			policy.onInsert(node);
+		}
+
+		while (weight > maximumWeight)
+			evict(policy.victim());
+	}
+
+	public Entry<K, V> remove(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		Entry<K, Node> found = index.remove(key);
+		if (found == null)
+			return null;
+
+		Node node = found.getValue();
+		unlink(node);
+		return node.entry;
+	}
+
+	private void evict(Node node)
+	{
+		index.remove(node.entry.getKey());
+		unlink(node);
+		evictionCount++;
+	}
+
+	private void unlink(Node node)
+	{
+		policy.onRemove(node);
+		weight -= node.weight;
+		decrementSize();
+	}
+
+	/** Returns the total weight of the entries. Without a weigher this is the same as the size.
+	 * @return The total weight.
+	 */
+	public long weightedSize()
+	{
+		return weight;
+	}
+
+	/** Returns the maximum total weight, or the maximum number of entries if there is no weigher.
+	 * @return The maximum weight.
+	 */
+	public long maximumWeight()
+	{
+		return maximumWeight;
+	}
+
+	/** Returns the policy used to choose which entry to evict.
+	 * @return The eviction policy.
+	 */
+	public EvictionPolicy evictionPolicy()
+	{
+		return evictionPolicy;
+	}
+
+	/** Returns the number of calls to get that found their key.
+	 * @return The hit count.
+	 */
+	public long hitCount()
+	{
+		return hitCount;
+	}
+
+	/** Returns the number of calls to get that did not find their key.
+	 * @return The miss count.
+	 */
+	public long missCount()
+	{
+		return missCount;
+	}
+
+	/** Returns the share of calls to get that found their key.
+	 * @return The hit rate between 0 and 1. Returns 1 if get was never called.
+	 */
+	public double hitRate()
+	{
+		long requests = hitCount + missCount;
+		return requests == 0 ? 1.0 : (double) hitCount / requests;
+	}
+
+	/** Returns the number of entries removed to stay within the maximum size. Entries removed with remove are not
+	 * counted.
+	 * @return The eviction count.
+	 */
+	public long evictionCount()
+	{
+		return evictionCount;
+	}
+
+	/** Returns the entries, starting with the ones the policy is closest to evicting.
+	 * @return The entries as a string.
+	 */
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+		policy.append(output);
+		output.append("]");
+		return output.toString();
+	}
+
+	/** An entry of the cache, which is also the node of whichever list the policy keeps it in.
+	 * @author Sobhan Mehrpour
+	 */
+	private class Node
+	{
+		private Entry<K,V> entry;
+		private int weight;
+
+		private Node previous;
+		private Node next;
+
+		// The list the node is in. Used by TINY_LFU to tell the segments apart.
+		private NodeList list;
+
+		// The frequency group the node is in. Only used by LFU.
+		private FrequencyNode frequency;
+
+		public Node(Entry<K,V> entry, int weight)
+		{
+			this.entry = entry;
+			this.weight = weight;
+		}
+
+		public Node()
+		{
+		}
+	}
+
+	/** A circular doubly linked list of nodes around a sentinel, so any node can be unlinked in O(1) time. It also
+	 * keeps the total weight of its nodes.
+	 * @author Sobhan Mehrpour
+	 */
+	private class NodeList
+	{
+		private final Node sentinel;
+		private long weight;
+
+		public NodeList()
+		{
+			sentinel = new Node();
+			sentinel.previous = sentinel;
+			sentinel.next = sentinel;
+			weight = 0;
+		}
+
+		public boolean isEmpty()
+		{
+			return sentinel.next == sentinel;
+		}
+
+		/** Returns the node that has been in the list the longest.
+		 * @return The first node. Returns null if the list is empty.
+		 */
+		public Node first()
+		{
+			return isEmpty() ? null : sentinel.next;
+		}
+
+		/** Returns the node that was added or moved most recently.
+		 * @return The last node. Returns null if the list is empty.
+		 */
+		public Node last()
+		{
+			return isEmpty() ? null : sentinel.previous;
+		}
+
+		public void addLast(Node node)
+		{
+			node.previous = sentinel.previous;
+			node.next = sentinel;
+			sentinel.previous.next = node;
+			sentinel.previous = node;
+			node.list = this;
+			weight += node.weight;
+		}
+
+		public void remove(Node node)
+		{
+			node.previous.next = node.next;
+			node.next.previous = node.previous;
+			node.previous = null;
+			node.next = null;
+			node.list = null;
+			weight -= node.weight;
+		}
+
+		public void moveToEnd(Node node)
+		{
+			remove(node);
+			addLast(node);
+		}
+
+		public void append(StringBuilder output)
+		{
+			for (Node node = sentinel.next ; node != sentinel ; node = node.next)
+				output.append(node.entry.toString() + " ");
+		}
+	}
+
+	/** Decides where nodes are kept and which one is evicted next.
+	 * @author Sobhan Mehrpour
+	 */
+	private abstract class Policy
+	{
+		abstract void onInsert(Node node);
+
+		abstract void onAccess(Node node);
+
+		abstract void onRemove(Node node);
+
+		/** Returns the node to evict. Only called while the cache is over its maximum weight, so it is never empty.
+		 * @return The victim.
+		 */
+		abstract Node victim();
+
+		abstract void append(StringBuilder output);
+
+		/** Called when a key is looked up but not found.
+		 * @param key The key.
+		 */
+		void onMiss(K key)
+		{
+		}
+
+		/** Called before the weight of a node changes, so the lists can keep their totals right.
+		 * @param node The node.
+		 * @param difference The new weight minus the old one.
+		 */
+		void onUpdate(Node node, int difference)
+		{
+			if (node.list != null)
+				node.list.weight += difference;
+		}
+	}
+
+	/** Keeps every node in one list ordered by recency and evicts from the front.
+	 * @author Sobhan Mehrpour
+	 */
+	private class LruPolicy extends Policy
+	{
+		private final NodeList nodes = new NodeList();
+
+		void onInsert(Node node)
+		{
+			nodes.addLast(node);
+		}
+
+		void onAccess(Node node)
+		{
+			nodes.moveToEnd(node);
+		}
+
+		void onRemove(Node node)
+		{
+			nodes.remove(node);
+		}
+
+		Node victim()
+		{
+			return nodes.first();
+		}
+
+		void append(StringBuilder output)
+		{
+			nodes.append(output);
+		}
+	}
+
+	/** A group of nodes that have all been used the same number of times.
+	 * @author Sobhan Mehrpour
+	 */
+	private class FrequencyNode
+	{
+		private final long count;
+		private final NodeList nodes;
+
+		private FrequencyNode previous;
+		private FrequencyNode next;
+
+		public FrequencyNode(long count)
+		{
+			this.count = count;
+			nodes = new NodeList();
+		}
+	}
+
+	/** Keeps a list of frequency groups in increasing order of use count, each with its nodes ordered by recency. A
+	 * node only ever moves to the next group over, which is what keeps every operation O(1).
+	 * @author Sobhan Mehrpour
+	 */
+	private class LfuPolicy extends Policy
+	{
+		private final FrequencyNode sentinel;
+
+		public LfuPolicy()
+		{
+			sentinel = new FrequencyNode(0);
+			sentinel.previous = sentinel;
+			sentinel.next = sentinel;
+		}
+
+		/** Returns the group with the given count that comes right after the given one, creating it if needed.
+		 * @param after The group before it.
+		 * @param count The use count.
+		 * @return The group.
+		 */
+		private FrequencyNode groupAfter(FrequencyNode after, long count)
+		{
+			if (after.next != sentinel && after.next.count == count)
+				return after.next;
+
+			FrequencyNode group = new FrequencyNode(count);
+			group.previous = after;
+			group.next = after.next;
+			after.next.previous = group;
+			after.next = group;
+			return group;
+		}
+
+		private void leave(Node node)
+		{
+			FrequencyNode group = node.frequency;
+			group.nodes.remove(node);
+			node.frequency = null;
+
+			// Empty groups are dropped so the front group always holds the victim.
+			if (group.nodes.isEmpty())
+			{
+				group.previous.next = group.next;
+				group.next.previous = group.previous;
+			}
+		}
+
+		void onInsert(Node node)
+		{
+			FrequencyNode group = groupAfter(sentinel, 1);
+			group.nodes.addLast(node);
+			node.frequency = group;
+		}
+
+		void onAccess(Node node)
+		{
+			FrequencyNode current = node.frequency;
+			FrequencyNode group = groupAfter(current, current.count + 1);
+			leave(node);
+			group.nodes.addLast(node);
+			node.frequency = group;
+		}
+
+		void onRemove(Node node)
+		{
+			leave(node);
+		}
+
+		Node victim()
+		{
+			return sentinel.next.nodes.first();
+		}
+
+		void append(StringBuilder output)
+		{
+			for (FrequencyNode group = sentinel.next ; group != sentinel ; group = group.next)
+				group.nodes.append(output);
+		}
+	}
+
+	/** Window TinyLFU. New nodes enter a small LRU window. Nodes pushed out of the window become candidates in the
+	 * probation segment of the main cache, where they have to be used again to reach the protected segment. When the
+	 * cache is full, the oldest probation node and the newest candidate are compared by their estimated frequency and
+	 * the less used one is evicted, so one-off keys cannot flush out popular ones.
+	 * @author Sobhan Mehrpour
+	 */
+	private class TinyLfuPolicy extends Policy
+	{
+		private final NodeList window = new NodeList();
+		private final NodeList probation = new NodeList();
+		private final NodeList protectedList = new NodeList();
+		private final FrequencySketch<K> sketch;
+
+		private final long windowMaximum;
+		private final long protectedMaximum;
+
+		public TinyLfuPolicy()
+		{
+			windowMaximum = Math.max(1, (long) (maximumWeight * WINDOW_RATIO));
+			protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_RATIO);
+
+			// The maximum is a weight, not a number of entries, so the sketch starts small and grows with the cache.
+			sketch = new FrequencySketch<>(0);
+		}
+
+		void onMiss(K key)
+		{
+			sketch.increment(key);
+		}
+
+		void onInsert(Node node)
+		{
+			sketch.ensureCapacity(size());
+			sketch.increment(node.entry.getKey());
+			window.addLast(node);
+
+			// Whatever overflows the window goes on to compete for a place in the main cache.
+			while (window.weight > windowMaximum && window.first() != node)
+				probation.addLast(removeFirst(window));
+		}
+
+		void onAccess(Node node)
+		{
+			sketch.increment(node.entry.getKey());
+
+			if (node.list == probation)
+			{
+				// A second use promotes the node, pushing the oldest protected nodes back to probation if needed.
+				probation.remove(node);
+				protectedList.addLast(node);
+				while (protectedList.weight > protectedMaximum && protectedList.first() != node)
+					probation.addLast(removeFirst(protectedList));
+			}
+			else
+				node.list.moveToEnd(node);
+		}
+
+		void onRemove(Node node)
+		{
+			node.list.remove(node);
+		}
+
+		private Node removeFirst(NodeList list)
+		{
+			Node node = list.first();
+			list.remove(node);
+			return node;
+		}
+
+		Node victim()
+		{
+			Node victim = probation.first();
+			Node candidate = probation.last();
+
+			if (victim == null)
+				return protectedList.isEmpty() ? window.first() : protectedList.first();
+			if (victim == candidate)
+				return victim;
+
+			// Ties go against the candidate, so the main cache is not churned by keys seen as often as what it holds.
+			K candidateKey = candidate.entry.getKey();
+			K victimKey = victim.entry.getKey();
+			return sketch.frequency(candidateKey) > sketch.frequency(victimKey) ? victim : candidate;
+		}
+
+		void append(StringBuilder output)
+		{
+			probation.append(output);
+			protectedList.append(output);
+			window.append(output);
+		}
+	}
+}
@@ -0,0 +1,382 @@
+package maps;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+import priorityqueues.Entry;
+
+/** A hash map that is safe to share between threads. The table is split into segments that are each guarded by their
+ * own lock, so writers only contend when they hit the same segment. Reads take no lock at all: bins are read through
+ * volatile references, and a segment that grows builds its new table on the side and publishes it in one write, so
+ * readers keep using the old table until then. The size is kept in a LongAdder instead of a shared counter.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class ConcurrentHashMap <K extends Comparable<K>, V> extends Map<K,V>
+{
+	private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final double LOAD_FACTOR = 0.75;
+	private static final int MAXIMUM_SEGMENTS = 1 << 16;
+	private static final int MAXIMUM_SEGMENT_CAPACITY = 1 << 30;
+
+	// The segments, and what is needed to pick one out of a hash.
+	private final Segment[] segments;
+	private final int segmentShift;
+	private final int segmentMask;
+
+	private final LongAdder size;
+
+	/**
+	 * Default constructor. Uses 16 segments.
+	 */
+	public ConcurrentHashMap()
+	{
+		this(DEFAULT_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	/** Full constructor.
+	 * @param startCapacity The number of entries the map should hold before any segment has to grow.
+	 * @param concurrencyLevel The expected number of concurrently writing threads. It is rounded up to a power of two
+	 * and used as the number of segments.
+	 */
+	public ConcurrentHashMap(int startCapacity, int concurrencyLevel)
+	{
+		// Handling exceptional cases.
+		if (startCapacity < 0)
+			throw new IllegalArgumentException("The start capacity cannot be negative.");
+		if (concurrencyLevel <= 0)
+			throw new IllegalArgumentException("The concurrency level must be a positive integer.");
+
+		// Rounding the number of segments up to a power of two so the top bits of a hash can pick one.
+		int segmentCount = 1;
+		int shift = 0;
+		while (segmentCount < Math.min(concurrencyLevel, MAXIMUM_SEGMENTS))
+		{
+			segmentCount <<= 1;
+			shift++;
+		}
+		segmentShift = 32 - shift;
+		segmentMask = segmentCount - 1;
+
+		// Splitting the capacity between the segments.
+		int segmentCapacity = 2;
+		while (segmentCapacity * segmentCount < startCapacity)
+			segmentCapacity <<= 1;
+
+		segments = newSegmentArray(segmentCount);
+		for (int i = 0 ; i < segmentCount ; i++)
+			segments[i] = new Segment(segmentCapacity);
+
+		size = new LongAdder();
+	}
+
+	/** Spreads the hash code so that both the top bits, which pick the segment, and the bottom bits, which pick the bin,
+	 * depend on the whole hash code.
+	 * @param key The key.
+	 * @return The spread hash.
+	 */
+	private static int hash(Object key)
+	{
+		int h = key.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Segment[] newSegmentArray(int length)
+	{
+		return (Segment[]) new ConcurrentHashMap.Segment[length];
+	}
+
+	private Segment segmentFor(int hash)
+	{
+		// The segment is chosen by the top bits, so it is independent of the bin chosen by the bottom bits.
+		return segments[(hash >>> segmentShift) & segmentMask];
+	}
+
+	/** Returns the entry with the given key. This never blocks.
+	 * @param key The key.
+	 * @return The entry. Returns null if the key is not in the map.
+	 */
+	public Entry<K, V> get(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int hash = hash(key);
+		AtomicReferenceArray<Node<K,V>> table = segmentFor(hash).table;
+		for (Node<K,V> node = table.get(hash & (table.length() - 1)) ; node != null ; node = node.next)
+		{
+			if (node.hash == hash && node.key.equals(key))
+				return node.entry;
+		}
+		return null;
+	}
+
+	/** Inserts a new entry into the map. If the key is already in the map, its entry is replaced by a new one instead,
+	 * so readers only ever see fully built entries.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
+	public void put(K key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int hash = hash(key);
+		Segment segment = segmentFor(hash);
+		segment.lock();
+		try
+		{
+			AtomicReferenceArray<Node<K,V>> table = segment.table;
+			int index = hash & (table.length() - 1);
+			Node<K,V> first = table.get(index);
+			for (Node<K,V> node = first ; node != null ; node = node.next)
+			{
+				if (node.hash == hash && node.key.equals(key))
+				{
+					node.entry = new Entry<>(key, value);
+					return;
+				}
+			}
+
+			// Publishing the new node at the head of the bin. Its fields are set before the volatile write.
+			table.set(index, new Node<>(hash, key, new Entry<>(key, value), first));
+			size.increment();
+			if (++segment.count > segment.threshold)
+				segment.rehash();
+		}
+		finally
+		{
+			segment.unlock();
+		}
+	}
+
+	public Entry<K, V> remove(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int hash = hash(key);
+		Segment segment = segmentFor(hash);
+		segment.lock();
+		try
+		{
+			AtomicReferenceArray<Node<K,V>> table = segment.table;
+			int index = hash & (table.length() - 1);
+			Node<K,V> previous = null;
+			for (Node<K,V> node = table.get(index) ; node != null ; node = node.next)
+			{
+				if (node.hash == hash && node.key.equals(key))
+				{
+					// Readers already walking past this node simply finish their walk through it.
+					if (previous == null)
+						table.set(index, node.next);
+					else
+						previous.next = node.next;
+
+					segment.count--;
+					size.decrement();
+					return node.entry;
+				}
+				previous = node;
+			}
+			return null;
+		}
+		finally
+		{
+			segment.unlock();
+		}
+	}
+
+	/** Inserts the key and value only if the key is not in the map yet, atomically with respect to other writers.
+	 * @param key The key.
+	 * @param value The value.
+	 * @return The value already mapped to the key. Returns null if the key was absent and has been inserted.
+	 */
+	@SuppressWarnings("unchecked")
+	public V putIfAbsent(K key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		// Capturing the old value while the lock is still held.
+		Object[] existing = new Object[1];
+		compute(key, (k, oldValue) ->
+		{
+			existing[0] = oldValue;
+			return oldValue != null ? oldValue : value;
+		});
+		return (V) existing[0];
+	}
+
+	/** Computes a new value for the key from its current value, which is null if the key is absent. If the function
+	 * returns null, the key is removed instead. The whole operation holds the segment lock, so it is atomic with
+	 * respect to other writers, and the function must not use the map itself.
+	 * @param key The key.
+	 * @param remappingFunction Computes the new value from the key and the current value.
+	 * @return The new value. Returns null if the key is absent afterwards.
+	 */
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction)
+	{
+		if (key == null || remappingFunction == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int hash = hash(key);
+		Segment segment = segmentFor(hash);
+		segment.lock();
+		try
+		{
+			AtomicReferenceArray<Node<K,V>> table = segment.table;
+			int index = hash & (table.length() - 1);
+			Node<K,V> first = table.get(index);
+			Node<K,V> previous = null;
+			Node<K,V> node = first;
+			while (node != null && !(node.hash == hash && node.key.equals(key)))
+			{
+				previous = node;
+				node = node.next;
+			}
+
+			V oldValue = node == null ? null : node.entry.getValue();
+			V value = remappingFunction.apply(key, oldValue);
+
+			if (value == null)
+			{
+				if (node != null)
+				{
+					if (previous == null)
+						table.set(index, node.next);
+					else
+						previous.next = node.next;
+					segment.count--;
+					size.decrement();
+				}
+			}
+			else if (node != null)
+			{
+				if (value != oldValue)
+					node.entry = new Entry<>(key, value);
+			}
+			else
+			{
+				table.set(index, new Node<>(hash, key, new Entry<>(key, value), first));
+				size.increment();
+				if (++segment.count > segment.threshold)
+					segment.rehash();
+			}
+			return value;
+		}
+		finally
+		{
+			segment.unlock();
+		}
+	}
+
+	/** Returns the current size. While other threads are writing, this is only an estimate.
+	 * @return The number of entries.
+	 */
+	public int size()
+	{
+		long sum = size.sum();
+		return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max(sum, 0);
+	}
+
+	public boolean isEmpty()
+	{
+		return size.sum() <= 0;
+	}
+
+	/** Returns the number of segments the map is split into.
+	 * @return The number of segments.
+	 */
+	public int segmentCount()
+	{
+		return segments.length;
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+		for (Segment segment : segments)
+		{
+			AtomicReferenceArray<Node<K,V>> table = segment.table;
+			for (int i = 0 ; i < table.length() ; i++)
+			{
+				for (Node<K,V> node = table.get(i) ; node != null ; node = node.next)
+					output.append(node.entry.toString() + " ");
+			}
+		}
+		output.append("]");
+		return output.toString();
+	}
+
+	/** A part of the table guarded by its own lock. Only the thread holding the lock may change it.
+	 * @author Sobhan Mehrpour
+	 */
+	@SuppressWarnings("serial")
+	private class Segment extends ReentrantLock
+	{
+		// Replaced as a whole when the segment grows.
+		private volatile AtomicReferenceArray<Node<K,V>> table;
+
+		// Only read and written while holding the lock.
+		private int count;
+		private int threshold;
+
+		public Segment(int capacity)
+		{
+			table = new AtomicReferenceArray<Node<K,V>>(capacity);
+			count = 0;
+			threshold = (int) (capacity * LOAD_FACTOR);
+		}
+
+		/**
+		 * Builds a table twice the size out of copies of the current nodes and then publishes it. Readers that are
+		 * still on the old table are unaffected, since none of its nodes are changed.
+		 */
+		private void rehash()
+		{
+			AtomicReferenceArray<Node<K,V>> oldTable = table;
+			if (oldTable.length() >= MAXIMUM_SEGMENT_CAPACITY)
+				return;
+
+			AtomicReferenceArray<Node<K,V>> newTable = new AtomicReferenceArray<Node<K,V>>(oldTable.length() * 2);
+			int mask = newTable.length() - 1;
+			for (int i = 0 ; i < oldTable.length() ; i++)
+			{
+				for (Node<K,V> node = oldTable.get(i) ; node != null ; node = node.next)
+				{
+					int index = node.hash & mask;
+					newTable.set(index, new Node<>(node.hash, node.key, node.entry, newTable.get(index)));
+				}
+			}
+
+			threshold = (int) (newTable.length() * LOAD_FACTOR);
+			table = newTable;
+		}
+	}
+
+	/** A node of a bin. The key and hash never change, while the entry and link are volatile so that lock free readers
+	 * see changes made under the segment lock.
+	 * @author Sobhan Mehrpour
+	 */
+	private static class Node <K extends Comparable<K>, V>
+	{
+		private final int hash;
+		private final K key;
+		private volatile Entry<K,V> entry;
+		private volatile Node<K,V> next;
+
+		public Node(int hash, K key, Entry<K,V> entry, Node<K,V> next)
+		{
+			this.hash = hash;
+			this.key = key;
+			this.entry = entry;
+			this.next = next;
+		}
+	}
+}
@@ -0,0 +1,687 @@
+package maps;
+
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+import priorityqueues.Entry;
+
+/** A sorted map that is safe to share between threads without any locks. It is a lock-free skip list: a node is
+ * removed by first clearing its entry with compare-and-set and then marking its links, after which any thread that
+ * walks past it unlinks it, and new nodes are linked in from the bottom level up. Since a cleared entry is never set
+ * again, a value can only be replaced while the node is still in the map. Lookups never write. Iterators and range
+ * views are weakly consistent: they never fail, and they reflect some of the changes made while they are being walked.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class ConcurrentSkipListMap <K extends Comparable<K>, V> extends Map<K,V> implements Iterable<Entry<K,V>>
+{
+	/**
+	 * The number of levels in the list, which is enough for far more entries than an array index can count.
+	 */
+	private static final int MAXIMUM_LEVEL = 32;
+
+	// Sentinels at the start and end of every level. Neither holds a key.
+	private final Node<K,V> head;
+	private final Node<K,V> tail;
+
+	private final LongAdder size;
+
+	/**
+	 * Default constructor. Creates an empty map.
+	 */
+	public ConcurrentSkipListMap()
+	{
+		tail = new Node<K,V>(null, null, MAXIMUM_LEVEL - 1);
+		head = new Node<K,V>(null, null, MAXIMUM_LEVEL - 1);
+		for (int i = 0 ; i < MAXIMUM_LEVEL ; i++)
+			head.next[i] = new AtomicMarkableReference<Node<K,V>>(tail, false);
+		size = new LongAdder();
+	}
+
+	/** Picks the top level of a new node. Each level is used by half as many nodes as the one below it.
+	 * @return The top level.
+	 */
+	private static int randomLevel()
+	{
+		int level = Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | (1 << (MAXIMUM_LEVEL - 1)));
+		return Math.min(level, MAXIMUM_LEVEL - 1);
+	}
+
+	/** Returns whether the node comes before the key. The tail comes after every key.
+	 * @param node The node. Must not be the head.
+	 * @param key The key.
+	 * @return True if the node's key is less than the key.
+	 */
+	private boolean isBefore(Node<K,V> node, K key)
+	{
+		return node != tail && node.key.compareTo(key) < 0;
+	}
+
+	/** Finds the nodes on either side of the key on every level, unlinking any marked nodes passed on the way.
+	 * @param key The key.
+	 * @param preds Filled with the last node before the key on each level.
+	 * @param succs Filled with the first node at or after the key on each level.
+	 * @return True if the key is in the map.
+	 */
+	private boolean find(K key, Node<K,V>[] preds, Node<K,V>[] succs)
+	{
+		boolean[] marked = {false};
+
+		retry:
+		while (true)
+		{
+			Node<K,V> pred = head;
+			for (int level = MAXIMUM_LEVEL - 1 ; level >= 0 ; level--)
+			{
+				Node<K,V> curr = pred.next[level].getReference();
+				while (true)
+				{
+					Node<K,V> succ = curr == tail ? null : curr.next[level].get(marked);
+
+					// Unlinking marked nodes. If pred changed in the meantime the search starts over.
+					while (curr != tail && marked[0])
+					{
+						if (!pred.next[level].compareAndSet(curr, succ, false, false))
+							continue retry;
+						curr = succ;
+						succ = curr == tail ? null : curr.next[level].get(marked);
+					}
+
+					if (isBefore(curr, key))
+					{
+						pred = curr;
+						curr = succ;
+					}
+					else
+					{
+						break;
+					}
+				}
+				preds[level] = pred;
+				succs[level] = curr;
+			}
+			return succs[0] != tail && succs[0].key.compareTo(key) == 0;
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Node<K,V>[] newNodeArray()
+	{
+		return (Node<K,V>[]) new Node[MAXIMUM_LEVEL];
+	}
+
+	/** Returns the entry with the given key. This never writes to the list.
+	 * @param key The key.
+	 * @return The entry. Returns null if the key is not in the map.
+	 */
+	public Entry<K, V> get(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+
+		Node<K,V> node = findNode(key);
+		return node == null ? null : node.entry.get();
+	}
+
+	/** Walks down the list to the node with the key without unlinking anything.
+	 * @param key The key.
+	 * @return The node. Returns null if there is no node with the key that has not been removed.
+	 */
+	private Node<K,V> findNode(K key)
+	{
+		Node<K,V> pred = head;
+		Node<K,V> curr = null;
+		for (int level = MAXIMUM_LEVEL - 1 ; level >= 0 ; level--)
+		{
+			curr = pred.next[level].getReference();
+			while (isBefore(curr, key))
+			{
+				pred = curr;
+				curr = curr.next[level].getReference();
+			}
+		}
+
+		if (curr == tail || curr.key.compareTo(key) != 0 || curr.isRemoved())
+			return null;
+		return curr;
+	}
+
+	/** Inserts a new entry into the map. If the key is already in the map, its entry is replaced by a new one instead,
+	 * so readers only ever see fully built entries.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
+	public void put(K key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Cannot pass null values to map.");
+
+		int topLevel = randomLevel();
+		Node<K,V>[] preds = newNodeArray();
+		Node<K,V>[] succs = newNodeArray();
+
+		while (true)
+		{
+			if (find(key, preds, succs))
+			{
+				// The entry is only replaced while the node still has one. A node without one is being removed, so the
+				// removal is finished first and the key is inserted again.
+				Node<K,V> node = succs[0];
+				Entry<K,V> entry = node.entry.get();
+				if (entry != null && node.entry.compareAndSet(entry, new Entry<>(key, value)))
+					return;
+				if (entry == null)
+					markNode(node);
+				continue;
+			}
+
+			if (link(new Node<K,V>(key, new Entry<>(key, value), topLevel), preds, succs))
+				return;
+		}
+	}
+
+	/** Inserts the key and value only if the key is not in the map yet. Checking and inserting happen as one atomic
+	 * step.
+	 * @param key The key.
+	 * @param value The value.
+	 * @return The value already mapped to the key. Returns null if the key was absent and has been inserted.
+	 */
+	public V putIfAbsent(K key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Cannot pass null values to map.");
+
+		int topLevel = randomLevel();
+		Node<K,V>[] preds = newNodeArray();
+		Node<K,V>[] succs = newNodeArray();
+
+		while (true)
+		{
+			if (find(key, preds, succs))
+			{
+				Node<K,V> node = succs[0];
+				Entry<K,V> entry = node.entry.get();
+				if (entry != null)
+					return entry.getValue();
+				markNode(node);
+				continue;
+			}
+
+			if (link(new Node<K,V>(key, new Entry<>(key, value), topLevel), preds, succs))
+				return null;
+		}
+	}
+
+	/** Computes a new value for the key from its current value as one atomic step, so merge, computeIfAbsent and
+	 * computeIfPresent are atomic as well. No lock is held while the function runs: if another thread changes the key
+	 * first, the function is applied again to the newer value, so it may be called more than once and should have no
+	 * side effects.
+	 * @param key The key.
+	 * @param remappingFunction Computes the new value from the key and the current value, which is null if the key is
+	 * absent. Returning null removes the key.
+	 * @return The new value. Returns null if the key is absent afterwards.
+	 */
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction)
+	{
+		if (key == null || remappingFunction == null)
+			throw new IllegalArgumentException("Cannot pass null values to map.");
+
+		int topLevel = randomLevel();
+		Node<K,V>[] preds = newNodeArray();
+		Node<K,V>[] succs = newNodeArray();
+
+		while (true)
+		{
+			if (find(key, preds, succs))
+			{
+				Node<K,V> node = succs[0];
+				Entry<K,V> entry = node.entry.get();
+				if (entry == null)
+				{
+					markNode(node);
+					continue;
+				}
+
+				// The new entry only lands if the entry the value was computed from is still the current one.
+				V value = remappingFunction.apply(key, entry.getValue());
+				if (value == entry.getValue())
+					return value;
+				if (value != null && node.entry.compareAndSet(entry, new Entry<>(key, value)))
+					return value;
+				if (value == null && node.entry.compareAndSet(entry, null))
+				{
+					size.decrement();
+					markNode(node);
+					find(key, preds, succs);
+					return null;
+				}
+				continue;
+			}
+
+			V value = remappingFunction.apply(key, null);
+			if (value == null)
+				return null;
+			if (link(new Node<K,V>(key, new Entry<>(key, value), topLevel), preds, succs))
+				return value;
+		}
+	}
+
+	/** Links a new node in between the nodes a search found.
+	 * @param node The node.
+	 * @param preds The last node before the key on each level.
+	 * @param succs The first node after the key on each level.
+	 * @return True if the node was linked. False if the bottom level changed since the search, which has to be
+	 * repeated.
+	 */
+	private boolean link(Node<K,V> node, Node<K,V>[] preds, Node<K,V>[] succs)
+	{
+		// The node becomes part of the map once it is linked on the bottom level.
+		for (int level = 0 ; level <= node.topLevel ; level++)
+			node.next[level] = new AtomicMarkableReference<Node<K,V>>(succs[level], false);
+		if (!preds[0].next[0].compareAndSet(succs[0], node, false, false))
+			return false;
+		size.increment();
+
+		// Linking the upper levels, which only speed up searches.
+		linkUpperLevels(node, preds, succs);
+		return true;
+	}
+
+	private void linkUpperLevels(Node<K,V> node, Node<K,V>[] preds, Node<K,V>[] succs)
+	{
+		for (int level = 1 ; level <= node.topLevel ; level++)
+		{
+			while (true)
+			{
+				// Pointing the node at the current successor first. If that fails, the node is being removed.
+				Node<K,V> oldNext = node.next[level].getReference();
+				if (oldNext != succs[level] && !node.next[level].compareAndSet(oldNext, succs[level], false, false))
+					return;
+				if (preds[level].next[level].compareAndSet(succs[level], node, false, false))
+					break;
+
+				// Something changed next to the node, so the neighbours are searched for again.
+				find(node.key, preds, succs);
+				if (succs[0] != node)
+					return;
+			}
+		}
+	}
+
+	public Entry<K, V> remove(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+
+		Node<K,V>[] preds = newNodeArray();
+		Node<K,V>[] succs = newNodeArray();
+
+		if (!find(key, preds, succs))
+			return null;
+		Node<K,V> node = succs[0];
+
+		// Whoever clears the entry is the one that removed the node.
+		Entry<K,V> removed;
+		do
+		{
+			removed = node.entry.get();
+			if (removed == null)
+				return null;
+		}
+		while (!node.entry.compareAndSet(removed, null));
+		size.decrement();
+
+		// Searching once more unlinks the marked node from every level.
+		markNode(node);
+		find(key, preds, succs);
+		return removed;
+	}
+
+	/** Marks every link of a node whose entry has been cleared, from the top level down. Any thread can do this, so
+	 * one that finds such a node does not have to wait for the thread that removed it.
+	 * @param node The node.
+	 */
+	private void markNode(Node<K,V> node)
+	{
+		boolean[] marked = {false};
+		for (int level = node.topLevel ; level >= 0 ; level--)
+		{
+			Node<K,V> succ = node.next[level].get(marked);
+			while (!marked[0])
+			{
+				node.next[level].compareAndSet(succ, succ, false, true);
+				succ = node.next[level].get(marked);
+			}
+		}
+	}
+
+	/** Returns the current size. While other threads are writing, this is only an estimate.
+	 * @return The number of entries.
+	 */
+	public int size()
+	{
+		long sum = size.sum();
+		return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max(sum, 0);
+	}
+
+	public boolean isEmpty()
+	{
+		return firstNode(head) == null;
+	}
+
+	/** Returns the first node after the given one on the bottom level that has not been removed.
+	 * @param node The node to start after.
+	 * @return The node. Returns null if the end of the list is reached.
+	 */
+	private Node<K,V> firstNode(Node<K,V> node)
+	{
+		Node<K,V> curr = node.next[0].getReference();
+		while (curr != tail && curr.isRemoved())
+			curr = curr.next[0].getReference();
+		return curr == tail ? null : curr;
+	}
+
+	/** Returns the node right before the first one at or after the key.
+	 * @param key The key.
+	 * @param isInclusive Whether a node with the same key counts. If false, the first greater key is found instead.
+	 * @return The node to start after. May be the head.
+	 */
+	private Node<K,V> ceilingPredecessor(K key, boolean isInclusive)
+	{
+		Node<K,V>[] preds = newNodeArray();
+		Node<K,V>[] succs = newNodeArray();
+		boolean isFound = find(key, preds, succs);
+
+		return isFound && !isInclusive ? succs[0] : preds[0];
+	}
+
+	/** Returns the entry of the last node at or before the key.
+	 * @param key The key.
+	 * @param isInclusive Whether a node with the same key counts. If false, the last smaller key is found instead.
+	 * @return The entry. Returns null if there is none.
+	 */
+	private Entry<K,V> floorEntry(K key, boolean isInclusive)
+	{
+		Node<K,V>[] preds = newNodeArray();
+		Node<K,V>[] succs = newNodeArray();
+		while (true)
+		{
+			boolean isFound = find(key, preds, succs);
+			Node<K,V> node = isFound && isInclusive ? succs[0] : preds[0];
+			if (node == head)
+				return null;
+
+			// Searching again if the node was removed after it was found.
+			Entry<K,V> entry = node.entry.get();
+			if (entry != null)
+				return entry;
+		}
+	}
+
+	/** Returns the entry of the first node after the given one that has not been removed.
+	 * @param node The node to start after.
+	 * @return The entry. Returns null if there is none.
+	 */
+	private Entry<K,V> entryAfter(Node<K,V> node)
+	{
+		for (Node<K,V> curr = firstNode(node) ; curr != null ; curr = firstNode(curr))
+		{
+			// The node may have been removed since it was found, so its entry is read just once.
+			Entry<K,V> entry = curr.entry.get();
+			if (entry != null)
+				return entry;
+		}
+		return null;
+	}
+
+	/** Returns the entry with the smallest key.
+	 * @return The first entry. Returns null if the map is empty.
+	 */
+	public Entry<K,V> firstEntry()
+	{
+		return entryAfter(head);
+	}
+
+	/** Returns the entry with the largest key.
+	 * @return The last entry. Returns null if the map is empty.
+	 */
+	public Entry<K,V> lastEntry()
+	{
+		while (true)
+		{
+			// Moving as far right as possible on every level.
+			Node<K,V> pred = head;
+			for (int level = MAXIMUM_LEVEL - 1 ; level >= 0 ; level--)
+			{
+				Node<K,V> curr = pred.next[level].getReference();
+				while (curr != tail)
+				{
+					pred = curr;
+					curr = curr.next[level].getReference();
+				}
+			}
+
+			if (pred == head)
+				return null;
+			Entry<K,V> entry = pred.entry.get();
+			if (entry != null)
+				return entry;
+
+			// The node was removed but is still linked. Unlinking it, or the walk would end on it again.
+			markNode(pred);
+			find(pred.key, newNodeArray(), newNodeArray());
+		}
+	}
+
+	/** Returns the entry with the largest key less than or equal to the given key.
+	 * @param key The key.
+	 * @return The entry. Returns null if there is none.
+	 */
+	public Entry<K,V> floorEntry(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+
+		return floorEntry(key, true);
+	}
+
+	/** Returns the entry with the smallest key greater than or equal to the given key.
+	 * @param key The key.
+	 * @return The entry. Returns null if there is none.
+	 */
+	public Entry<K,V> ceilingEntry(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+
+		return entryAfter(ceilingPredecessor(key, true));
+	}
+
+	/** Returns the entry with the largest key strictly less than the given key.
+	 * @param key The key.
+	 * @return The entry. Returns null if there is none.
+	 */
+	public Entry<K,V> lowerEntry(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+
+		return floorEntry(key, false);
+	}
+
+	/** Returns the entry with the smallest key strictly greater than the given key.
+	 * @param key The key.
+	 * @return The entry. Returns null if there is none.
+	 */
+	public Entry<K,V> higherEntry(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+
+		return entryAfter(ceilingPredecessor(key, false));
+	}
+
+	/** Returns a weakly consistent view of the entries with keys in the range [from, to).
+	 * @param from The smallest key included.
+	 * @param to The first key excluded.
+	 * @return The entries in the range, in key order.
+	 */
+	public Iterable<Entry<K,V>> subMap(K from, K to)
+	{
+		if (from == null || to == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+		if (from.compareTo(to) > 0)
+			throw new IllegalArgumentException("The start of the range cannot be after its end.");
+
+		return range(from, to);
+	}
+
+	/** Returns a weakly consistent view of the entries with keys strictly less than the given key.
+	 * @param to The first key excluded.
+	 * @return The entries in the range, in key order.
+	 */
+	public Iterable<Entry<K,V>> headMap(K to)
+	{
+		if (to == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+
+		return range(null, to);
+	}
+
+	/** Returns a weakly consistent view of the entries with keys greater than or equal to the given key.
+	 * @param from The smallest key included.
+	 * @return The entries in the range, in key order.
+	 */
+	public Iterable<Entry<K,V>> tailMap(K from)
+	{
+		if (from == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+
+		return range(from, null);
+	}
+
+	private Iterable<Entry<K,V>> range(K from, K to)
+	{
+		return new Iterable<Entry<K,V>>()
+		{
+			public Iterator<Entry<K,V>> iterator()
+			{
+				return new ListIterator(from == null ? head : ceilingPredecessor(from, true), to);
+			}
+		};
+	}
+
+	/** Returns a weakly consistent iterator over every entry in key order.
+	 * @return The iterator.
+	 */
+	public Iterator<Entry<K,V>> iterator()
+	{
+		return new ListIterator(head, null);
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+
+		// Looping through and adding entries to string.
+		Iterator<Entry<K,V>> iterator = iterator();
+		while (iterator.hasNext())
+		{
+			output.append(iterator.next().toString());
+			output.append(iterator.hasNext() ? ", " : " ");
+		}
+
+		output.append("]");
+		return output.toString();
+	}
+
+	/** Walks the bottom level, skipping nodes that have been removed.
+	 * @author Sobhan Mehrpour
+	 */
+	private class ListIterator implements Iterator<Entry<K,V>>
+	{
+		// The node returned next, and its entry, which is read once since the node may be removed at any time.
+		private Node<K,V> next;
+		private Entry<K,V> nextEntry;
+
+		// The first key not returned. Null means the iterator runs to the end of the list.
+		private K end;
+
+		/** Creates an iterator over the nodes after the given one.
+		 * @param start The node to start after.
+		 * @param end The first key not returned.
+		 */
+		public ListIterator(Node<K,V> start, K end)
+		{
+			this.end = end;
+			advance(start);
+		}
+
+		/** Moves to the first node after the given one that still has an entry and comes before the end.
+		 * @param node The node to start after.
+		 */
+		private void advance(Node<K,V> node)
+		{
+			for (next = firstNode(node) ; next != null ; next = firstNode(next))
+			{
+				if (end != null && next.key.compareTo(end) >= 0)
+					break;
+
+				nextEntry = next.entry.get();
+				if (nextEntry != null)
+					return;
+			}
+			next = null;
+			nextEntry = null;
+		}
+
+		public boolean hasNext()
+		{
+			return nextEntry != null;
+		}
+
+		public Entry<K,V> next()
+		{
+			if (!hasNext())
+				throw new IndexOutOfBoundsException("Iterator has no next!");
+
+			Entry<K,V> temp = nextEntry;
+			advance(next);
+			return temp;
+		}
+	}
+
+	/** A node of the skip list. The entry is cleared once the node is removed, and after that the link on each level
+	 * carries a mark.
+	 * @author Sobhan Mehrpour
+	 */
+	private static class Node <K extends Comparable<K>, V>
+	{
+		private final K key;
+		private final AtomicReference<Entry<K,V>> entry;
+		private final AtomicMarkableReference<Node<K,V>>[] next;
+		private final int topLevel;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		public Node(K key, Entry<K,V> entry, int topLevel)
+		{
+			this.key = key;
+			this.entry = new AtomicReference<Entry<K,V>>(entry);
+			this.topLevel = topLevel;
+			next = (AtomicMarkableReference<Node<K,V>>[]) new AtomicMarkableReference[topLevel + 1];
+		}
+
+		/** Returns whether the node has been removed from the map, even if it is still linked in.
+		 * @return True if the entry has been cleared.
+		 */
+		public boolean isRemoved()
+		{
+			return entry.get() == null;
+		}
+	}
+}
@@ -0,0 +1,391 @@
+package maps;
+
+import basicstructures.ArrayList;
+import priorityqueues.Entry;
+
+/** A hash map that uses bucketized cuckoo hashing. Every key has exactly two candidate buckets of four slots each, so
+ * get and remove look at no more than eight slots however full the table is, which makes it suited to lookups that
+ * far outnumber writes. Load factors up to about 0.95 work well. <br>
+ * Each bucket keeps a one byte fingerprint per slot, and the four fingerprints are packed into a single int. A lookup
+ * compares all four against the key's fingerprint at once with a few arithmetic operations, and only calls equals on
+ * the slots that match, so misses rarely touch the entries at all. <br>
+ * When both buckets of a new key are full, a resident of one of them is moved to its other bucket, possibly displacing
+ * another entry in turn. If that goes on for too long, the entry left over goes to a small overflow stash, which is
+ * searched after the two buckets. Growing the table cannot separate keys with equal hash codes, so the table only
+ * grows with the load factor, and a ninth key sharing a hash code with eight others simply lands in the stash.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class CuckooHashMap <K extends Comparable<K>, V> extends Map<K,V>
+{
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final double DEFAULT_LOAD_FACTOR = 0.9;
+	private static final int MAXIMUM_BUCKETS = 1 << 28;
+
+	/**
+	 * The number of slots in a bucket. Their fingerprints fill exactly one int.
+	 */
+	private static final int SLOTS = 4;
+
+	/**
+	 * The number of entries moved for a single put before the table is grown instead.
+	 */
+	private static final int MAXIMUM_DISPLACEMENTS = 500;
+
+	// The lowest and highest bit of every fingerprint byte.
+	private static final int LOW_BITS = 0x01010101;
+	private static final int HIGH_BITS = 0x80808080;
+
+	// The fingerprints of each bucket, one byte per slot. A fingerprint of 0 marks an empty slot.
+	private int[] tags;
+
+	// The entries and their hashes, SLOTS per bucket.
+	private Entry<K,V>[] entries;
+	private int[] hashes;
+
+	// Entries that could not be placed in either of their buckets. Null until the first one is needed.
+	private ArrayList<Entry<K,V>> stash;
+
+	private double loadFactor;
+	private int threshold;
+
+	// The state of the generator that picks which entry to displace.
+	private int seed;
+
+	/**
+	 * Default constructor. Starts with room for 16 entries and a load factor of 0.9.
+	 */
+	public CuckooHashMap()
+	{
+		this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+	}
+
+	/** Starting capacity is left up to the user. The load factor defaults to 0.9.
+	 * @param startCapacity The initial number of slots. It is rounded up to a power of two.
+	 */
+	public CuckooHashMap(int startCapacity)
+	{
+		this(startCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	/** A full constructor that allows the user to decide both the start capacity and the load factor.
+	 * @param startCapacity The initial number of slots. It is rounded up to a power of two.
+	 * @param loadFactor The maximum ratio of entries to slots before the table doubles. Must be between 0 and 1.
+	 */
+	public CuckooHashMap(int startCapacity, double loadFactor)
+	{
+		// Handling exceptional cases.
+		if (startCapacity < 0)
+			throw new IllegalArgumentException("The start capacity cannot be negative.");
+		if (!(loadFactor > 0 && loadFactor < 1))
+			throw new IllegalArgumentException("The load factor must be between 0 and 1.");
+
+		this.loadFactor = loadFactor;
+		seed = 0x2545F491;
+
+		int bucketCount = 2;
+		while (bucketCount * SLOTS < startCapacity && bucketCount < MAXIMUM_BUCKETS)
+			bucketCount <<= 1;
+		allocate(bucketCount);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void allocate(int bucketCount)
+	{
+		tags = new int[bucketCount];
+		entries = (Entry<K,V>[]) new Entry[bucketCount * SLOTS];
+		hashes = new int[bucketCount * SLOTS];
+		threshold = (int) (bucketCount * SLOTS * loadFactor);
+	}
+
+	private static int hash(Object key)
+	{
+		int h = key.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/** Returns the fingerprint of a hash, taken from its top byte. It is never 0, since 0 marks an empty slot.
+	 * @param hash The hash.
+	 * @return The fingerprint.
+	 */
+	private static int tag(int hash)
+	{
+		int tag = hash >>> 24;
+		return tag == 0 ? 1 : tag;
+	}
+
+	private int firstBucket(int hash)
+	{
+		return hash & (tags.length - 1);
+	}
+
+	private int secondBucket(int hash)
+	{
+		// The first bucket comes from the low bits, so the second is mixed from the high ones to be independent of it.
+		int h = Integer.rotateLeft(hash, 16) * 0x85EBCA6B;
+		int bucket = (h ^ (h >>> 15)) & (tags.length - 1);
+		return bucket == firstBucket(hash) ? bucket ^ 1 : bucket;
+	}
+
+	/** Returns a mask with the high bit set in every byte of the word that equals the given byte. Bytes above a match
+	 * may also be flagged by mistake, so matches still have to be checked.
+	 * @param word Four packed bytes.
+	 * @param value The byte to look for.
+	 * @return The mask.
+	 */
+	private static int matches(int word, int value)
+	{
+		int x = word ^ (value * LOW_BITS);
+		return (x - LOW_BITS) & ~x & HIGH_BITS;
+	}
+
+	/** Finds the slot holding the key in one bucket.
+	 * @param bucket The bucket.
+	 * @param tag The fingerprint of the key.
+	 * @param key The key.
+	 * @return The slot index across the whole table. Returns -1 if the key is not in the bucket.
+	 */
+	private int findInBucket(int bucket, int tag, K key)
+	{
+		int mask = matches(tags[bucket], tag);
+		while (mask != 0)
+		{
+			int slot = bucket * SLOTS + (Integer.numberOfTrailingZeros(mask) >>> 3);
+			Entry<K,V> entry = entries[slot];
+			if (entry != null && entry.getKey().equals(key))
+				return slot;
+			mask &= mask - 1;
+		}
+		return -1;
+	}
+
+	private int indexOf(K key)
+	{
+		int hash = hash(key);
+		int tag = tag(hash);
+		int slot = findInBucket(firstBucket(hash), tag, key);
+		return slot != -1 ? slot : findInBucket(secondBucket(hash), tag, key);
+	}
+
+	/** Returns the position of the key in the stash.
+	 * @param key The key.
+	 * @return The index. Returns -1 if the key is not in the stash.
+	 */
+	private int stashIndexOf(K key)
+	{
+		if (stash == null)
+			return -1;
+
+		for (int i = 0 ; i < stash.size() ; i++)
+		{
+			if (stash.getAtIndex(i).getKey().equals(key))
+				return i;
+		}
+		return -1;
+	}
+
+	public Entry<K, V> get(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int slot = indexOf(key);
+		if (slot != -1)
+			return entries[slot];
+
+		int index = stashIndexOf(key);
+		return index == -1 ? null : stash.getAtIndex(index);
+	}
+
+	/** Inserts a new entry into the map. If the key is already in the map, its value is replaced instead.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
+	public void put(K key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		Entry<K,V> existing = get(key);
+		if (existing != null)
+		{
+			existing.setValue(value);
+			return;
+		}
+
+		if (size() + 1 > threshold)
+			resize(tags.length * 2);
+
+		stashIfHomeless(place(new Entry<>(key, value), hash(key)));
+		incrementSize();
+	}
+
+	public Entry<K, V> remove(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int slot = indexOf(key);
+		if (slot == -1)
+		{
+			int index = stashIndexOf(key);
+			if (index == -1)
+				return null;
+
+			decrementSize();
+			return stash.removeAtIndex(index);
+		}
+
+		Entry<K,V> entry = entries[slot];
+		clear(slot);
+		decrementSize();
+		return entry;
+	}
+
+	private void set(int slot, Entry<K,V> entry, int hash)
+	{
+		int shift = (slot % SLOTS) * 8;
+		int bucket = slot / SLOTS;
+		tags[bucket] = (tags[bucket] & ~(0xFF << shift)) | (tag(hash) << shift);
+		entries[slot] = entry;
+		hashes[slot] = hash;
+	}
+
+	private void clear(int slot)
+	{
+		int shift = (slot % SLOTS) * 8;
+		tags[slot / SLOTS] &= ~(0xFF << shift);
+		entries[slot] = null;
+		hashes[slot] = 0;
+	}
+
+	/** Returns an empty slot of the bucket.
+	 * @param bucket The bucket.
+	 * @return The slot index across the whole table. Returns -1 if the bucket is full.
+	 */
+	private int emptySlot(int bucket)
+	{
+		// The lowest flagged byte is always a real match.
+		int mask = matches(tags[bucket], 0);
+		return mask == 0 ? -1 : bucket * SLOTS + (Integer.numberOfTrailingZeros(mask) >>> 3);
+	}
+
+	/** Places an entry that is not in the table yet, displacing others as needed.
+	 * @param entry The entry.
+	 * @param hash The hash of its key.
+	 * @return The entry left without a slot if too many had to be displaced. Returns null if everything was placed.
+	 */
+	private Entry<K,V> place(Entry<K,V> entry, int hash)
+	{
+		// A free slot in the second bucket is taken before displacing anything from the first.
+		int bucket = firstBucket(hash);
+		if (emptySlot(bucket) == -1 && emptySlot(secondBucket(hash)) != -1)
+			bucket = secondBucket(hash);
+
+		for (int i = 0 ; i < MAXIMUM_DISPLACEMENTS ; i++)
+		{
+			int slot = emptySlot(bucket);
+			if (slot != -1)
+			{
+				set(slot, entry, hash);
+				return null;
+			}
+
+			// The bucket is full, so a random resident is evicted and sent to its own other bucket.
+			seed ^= seed << 13;
+			seed ^= seed >>> 17;
+			seed ^= seed << 5;
+			slot = bucket * SLOTS + (seed & (SLOTS - 1));
+
+			Entry<K,V> evicted = entries[slot];
+			int evictedHash = hashes[slot];
+			set(slot, entry, hash);
+
+			entry = evicted;
+			hash = evictedHash;
+			bucket = bucket == firstBucket(hash) ? secondBucket(hash) : firstBucket(hash);
+		}
+		return entry;
+	}
+
+	/** Puts an entry that place could not find a slot for into the stash.
+	 * @param homeless The entry. Nothing happens if this is null.
+	 */
+	private void stashIfHomeless(Entry<K,V> homeless)
+	{
+		if (homeless == null)
+			return;
+
+		if (stash == null)
+			stash = new ArrayList<Entry<K,V>>();
+		stash.addLast(homeless);
+	}
+
+	/** Moves every entry into a new table of the given size. Stashed entries get another chance at a slot.
+	 * @param bucketCount The number of buckets of the new table.
+	 */
+	private void resize(int bucketCount)
+	{
+		if (bucketCount > MAXIMUM_BUCKETS)
+			throw new IllegalStateException("The map has reached its maximum capacity.");
+
+		Entry<K,V>[] oldEntries = entries;
+		int[] oldHashes = hashes;
+		ArrayList<Entry<K,V>> oldStash = stash;
+		allocate(bucketCount);
+		stash = null;
+
+		for (int i = 0 ; i < oldEntries.length ; i++)
+		{
+			if (oldEntries[i] != null)
+				stashIfHomeless(place(oldEntries[i], oldHashes[i]));
+		}
+		if (oldStash != null)
+		{
+			for (Entry<K,V> entry : oldStash)
+				stashIfHomeless(place(entry, hash(entry.getKey())));
+		}
+	}
+
+	/** Returns the number of entries that did not fit in either of their buckets.
+	 * @return The size of the overflow stash.
+	 */
+	public int stashSize()
+	{
+		return stash == null ? 0 : stash.size();
+	}
+
+	/** Returns the number of slots in the table.
+	 * @return The current table size.
+	 */
+	public int tableSize()
+	{
+		return entries.length;
+	}
+
+	/** Returns the maximum ratio of entries to slots before the table doubles.
+	 * @return The load factor.
+	 */
+	public double loadFactor()
+	{
+		return loadFactor;
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+		for (Entry<K,V> entry : entries)
+		{
+			if (entry != null)
+				output.append(entry.toString() + " ");
+		}
+		if (stash != null)
+		{
+			for (Entry<K,V> entry : stash)
+				output.append(entry.toString() + " ");
+		}
+		output.append("]");
+		return output.toString();
+	}
+}
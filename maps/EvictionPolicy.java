@@ -0,0 +1,24 @@
+package maps;
+
+/** The ways a CacheMap can choose which entry to evict once it is full.
+ * @author Sobhan Mehrpour
+ */
+public enum EvictionPolicy
+{
+	/**
+	 * Least recently used. Evicts the entry that has gone the longest without being read or written.
+	 */
+	LRU,
+	
+	/**
+	 * Least frequently used. Evicts the entry that has been read or written the fewest times, breaking ties by
+	 * recency.
+	 */
+	LFU,
+	
+	/**
+	 * Window TinyLFU. New entries go through a small LRU window, after which they are only admitted into the main
+	 * cache if a frequency sketch says they are used more often than the entry they would replace.
+	 */
+	TINY_LFU
+}
@@ -0,0 +1,209 @@
+package maps;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import priorityqueues.Entry;
+
+/** A map whose entries expire a fixed amount of time after they were written or, optionally, after they were last
+ * read. Deadlines are kept on a TimerWheel next to a HashMap index, so setting or cancelling one takes O(1) time and
+ * no operation ever has to scan the map for stale entries. <br>
+ * Expired entries are never returned, and are reclaimed in small batches as part of the following get, put, and
+ * remove calls, so until then they still count towards the size. Calling cleanUp reclaims them right away instead.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class ExpiringMap <K extends Comparable<K>, V> extends Map<K,V>
+{
+	private final HashMap<K, TimerWheel.Timer<Entry<K,V>>> index;
+	private final TimerWheel<Entry<K,V>> wheel;
+
+	private final long duration;
+	private final boolean shouldRenewOnAccess;
+	private final LongSupplier ticker;
+
+	/** Creates a map whose entries expire a fixed time after they were last written.
+	 * @param duration How long an entry lives.
+	 * @param unit The unit of the duration.
+	 */
+	public ExpiringMap(long duration, TimeUnit unit)
+	{
+		this(duration, unit, false);
+	}
+
+	/** Creates a map whose entries expire a fixed time after they were last written or, if chosen, read.
+	 * @param duration How long an entry lives.
+	 * @param unit The unit of the duration.
+	 * @param shouldRenewOnAccess Whether get restarts the entry's lifetime.
+	 */
+	public ExpiringMap(long duration, TimeUnit unit, boolean shouldRenewOnAccess)
+	{
+		this(duration, unit, shouldRenewOnAccess, System::nanoTime);
+	}
+
+	/** Full constructor. The ticker is mostly useful for tests that need to control time.
+	 * @param duration How long an entry lives.
+	 * @param unit The unit of the duration.
+	 * @param shouldRenewOnAccess Whether get restarts the entry's lifetime.
+	 * @param ticker The source of the current time in nanoseconds.
+	 */
+	public ExpiringMap(long duration, TimeUnit unit, boolean shouldRenewOnAccess, LongSupplier ticker)
+	{
+		// Handling exceptional cases.
+		if (unit == null || ticker == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+		if (duration <= 0)
+			throw new IllegalArgumentException("The duration must be positive.");
+
+		this.duration = unit.toNanos(duration);
+		this.shouldRenewOnAccess = shouldRenewOnAccess;
+		this.ticker = ticker;
+		index = new HashMap<>();
+		wheel = new TimerWheel<>(ticker.getAsLong());
+	}
+
+	private static boolean hasExpired(TimerWheel.Timer<?> timer, long now)
+	{
+		return timer.deadline() - now <= 0;
+	}
+
+	/** Returns the entry with the given key. If the map renews on access, the entry's lifetime starts over.
+	 * @param key The key.
+	 * @return The entry. Returns null if the key is not in the map or has expired.
+	 */
+	public Entry<K, V> get(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		long now = advance();
+		TimerWheel.Timer<Entry<K,V>> timer = find(key, now);
+		if (timer == null)
+			return null;
+
+		if (shouldRenewOnAccess)
+			wheel.reschedule(timer, now + duration);
+		return timer.item();
+	}
+
+	/** Inserts a new entry into the map, or replaces the value if the key is already in it. Either way the entry's
+	 * lifetime starts over.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
+	public void put(K key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		long now = advance();
+		TimerWheel.Timer<Entry<K,V>> timer = find(key, now);
+		if (timer != null)
+		{
+			timer.item().setValue(value);
+			wheel.reschedule(timer, now + duration);
+			return;
+		}
+
+		index.put(key, wheel.schedule(new Entry<>(key, value), now + duration));
+		incrementSize();
+	}
+
+	/** Removes the entry with the given key.
+	 * @param key The key.
+	 * @return The entry. Returns null if the key is not in the map or has expired.
+	 */
+	public Entry<K, V> remove(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		long now = advance();
+		TimerWheel.Timer<Entry<K,V>> timer = find(key, now);
+		if (timer == null)
+			return null;
+
+		index.remove(key);
+		wheel.cancel(timer);
+		decrementSize();
+		return timer.item();
+	}
+
+	/** Returns the timer of a key that has not expired. A key that has expired but not been reclaimed yet is reclaimed
+	 * here.
+	 * @param key The key.
+	 * @param now The current time.
+	 * @return The timer. Returns null if there is no live entry for the key.
+	 */
+	private TimerWheel.Timer<Entry<K,V>> find(K key, long now)
+	{
+		Entry<K, TimerWheel.Timer<Entry<K,V>>> found = index.get(key);
+		if (found == null)
+			return null;
+
+		TimerWheel.Timer<Entry<K,V>> timer = found.getValue();
+		if (hasExpired(timer, now))
+		{
+			index.remove(key);
+			wheel.cancel(timer);
+			decrementSize();
+			return null;
+		}
+		return timer;
+	}
+
+	/** Advances the wheel to the current time, reclaiming whatever has expired since it was last advanced.
+	 * @return The current time.
+	 */
+	private long advance()
+	{
+		long now = ticker.getAsLong();
+		wheel.advance(now, this::reclaim);
+		return now;
+	}
+
+	private void reclaim(Entry<K,V> entry)
+	{
+		index.remove(entry.getKey());
+		decrementSize();
+	}
+
+	/**
+	 * Reclaims every entry that has expired by now, instead of waiting for the next operation to do it.
+	 */
+	public void cleanUp()
+	{
+		advance();
+	}
+
+	/** Returns the time left before the entry with the given key expires. This does not count as an access.
+	 * @param key The key.
+	 * @param unit The unit of the returned time.
+	 * @return The time left. Returns -1 if the key is not in the map or has expired.
+	 */
+	public long timeToLive(K key, TimeUnit unit)
+	{
+		if (key == null || unit == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		long now = advance();
+		TimerWheel.Timer<Entry<K,V>> timer = find(key, now);
+		if (timer == null)
+			return -1;
+		return unit.convert(timer.deadline() - now, TimeUnit.NANOSECONDS);
+	}
+
+	public String toString()
+	{
+		long now = ticker.getAsLong();
+		StringBuilder output = new StringBuilder("[ ");
+		wheel.forEach(timer ->
+		{
+			if (!hasExpired(timer, now))
+				output.append(timer.item().toString() + " ");
+		});
+		output.append("]");
+		return output.toString();
+	}
+}
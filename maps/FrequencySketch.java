@@ -0,0 +1,145 @@
+package maps;
+
+/** A count-min sketch that estimates how often each key has been seen, using a fixed amount of memory. Every key maps
+ * to one 4-bit counter in each of four rows, and its estimate is the smallest of the four. Once enough keys have been
+ * counted every counter is halved, so the estimates favour recent activity.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ */
+public class FrequencySketch <K>
+{
+	/**
+	 * The largest value a 4-bit counter can hold.
+	 */
+	private static final int MAXIMUM_COUNT = 15;
+
+	/**
+	 * The longest a row can be, which keeps every counter index within an int.
+	 */
+	private static final int MAXIMUM_ROW_LENGTH = 1 << 28;
+
+	private static final int ROWS = 4;
+	private static final int[] SEEDS = { 0x97CB3127, 0xB1DE6F35, 0x9E3779B9, 0xC2B2AE35 };
+
+	// Sixteen 4-bit counters are packed into each long.
+	private long[] table;
+	private int rowMask;
+	private int rowLength;
+
+	// The counters are halved once this many increments have been made.
+	private int sampleSize;
+	private int additions;
+
+	/** Creates a sketch sized for the given number of distinct keys.
+	 * @param expectedSize The number of distinct keys that are expected to be tracked at once.
+	 */
+	public FrequencySketch(int expectedSize)
+	{
+		if (expectedSize < 0)
+			throw new IllegalArgumentException("The expected size cannot be negative.");
+
+		allocate(expectedSize);
+	}
+
+	/** Makes the sketch large enough for the given number of distinct keys. Growing the sketch discards every count,
+	 * so it is meant to be called as the number of keys grows, letting the table double a few times instead of being
+	 * sized for the worst case up front.
+	 * @param expectedSize The number of distinct keys that are expected to be tracked at once.
+	 */
+	public void ensureCapacity(int expectedSize)
+	{
+		if (expectedSize < 0)
+			throw new IllegalArgumentException("The expected size cannot be negative.");
+
+		if (expectedSize > rowLength && rowLength < MAXIMUM_ROW_LENGTH)
+			allocate(expectedSize);
+	}
+
+	/** Replaces the table with an empty one sized for the given number of distinct keys.
+	 * @param expectedSize The number of distinct keys.
+	 */
+	private void allocate(int expectedSize)
+	{
+		rowLength = 16;
+		while (rowLength < expectedSize && rowLength < MAXIMUM_ROW_LENGTH)
+			rowLength <<= 1;
+		rowMask = rowLength - 1;
+		table = new long[ROWS * rowLength / 16];
+		sampleSize = (int) Math.min(10L * Math.max(expectedSize, 1), Integer.MAX_VALUE);
+		additions = 0;
+	}
+
+	/** Returns the index of the key's counter in the given row.
+	 * @param hash The spread hash of the key.
+	 * @param row The row.
+	 * @return The counter index across the whole table.
+	 */
+	private int counterIndex(int hash, int row)
+	{
+		int h = (hash ^ SEEDS[row]) * SEEDS[row];
+		h ^= h >>> 16;
+		return row * rowLength + (h & rowMask);
+	}
+
+	private int count(int counter)
+	{
+		return (int) ((table[counter >>> 4] >>> ((counter & 15) << 2)) & 0xF);
+	}
+
+	private static int spread(Object key)
+	{
+		int h = key.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/** Returns the estimated number of times the key has been seen, capped at 15.
+	 * @param key The key.
+	 * @return The estimate.
+	 */
+	public int frequency(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int hash = spread(key);
+		int minimum = MAXIMUM_COUNT;
+		for (int row = 0 ; row < ROWS ; row++)
+			minimum = Math.min(minimum, count(counterIndex(hash, row)));
+		return minimum;
+	}
+
+	/** Records one more occurrence of the key.
+	 * @param key The key.
+	 */
+	public void increment(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int hash = spread(key);
+		boolean hasChanged = false;
+		for (int row = 0 ; row < ROWS ; row++)
+		{
+			int counter = counterIndex(hash, row);
+			if (count(counter) < MAXIMUM_COUNT)
+			{
+				table[counter >>> 4] += 1L << ((counter & 15) << 2);
+				hasChanged = true;
+			}
+		}
+
+		if (hasChanged && ++additions >= sampleSize)
+			reset();
+	}
+
+	/**
+	 * Halves every counter so that old activity counts for less.
+	 */
+	private void reset()
+	{
+		// Shifting the packed counters right by one and clearing the bit each one received from its neighbour.
+		for (int i = 0 ; i < table.length ; i++)
+			table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+		additions /= 2;
+	}
+}
@@ -1,102 +1,965 @@
 package maps;
 
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongBiFunction;
+
 import basicstructures.DoublyLinkedList;
 import priorityqueues.Entry;
 
-public class HashMap <K extends Comparable<K>, V> extends Map<K,V>
+/** A hash map that uses separate chaining. The table either keeps a fixed size or grows incrementally: once the load
+ * factor is exceeded, a table twice the size is allocated and the old buckets are moved over a few at a time by the
+ * following get, put, and remove calls, so no single operation pays for rehashing the whole map. <br>
+ * Buckets start as lists and are turned into balanced trees ordered by compareTo once they hold too many entries, so a
+ * badly distributed set of keys costs at most O(log n) per lookup. This relies on compareTo being consistent with
+ * equals. <br>
+ * The bulk operations forEach, search, reduce, and reduceToLong split the table into ranges of buckets and walk them
+ * in parallel on the common ForkJoinPool once the map holds at least a given number of entries. The map must not be
+ * changed while one of them runs.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class HashMap <K extends Comparable<K>, V> extends Map<K,V> implements Iterable<Entry<K,V>>
 {
-	DoublyLinkedList<Entry<K,V>>[] list;
-	
-	@SuppressWarnings("unchecked")
+	/**
+	 * The table size used by the default constructor.
+	 */
+	private static final int DEFAULT_TABLE_SIZE = 16;
+
+	/**
+	 * The load factor used by the default constructor.
+	 */
+	private static final double DEFAULT_LOAD_FACTOR = 0.75;
+
+	/**
+	 * The maximum number of non-empty buckets moved to the new table by a single operation.
+	 */
+	private static final int MIGRATION_STEP = 4;
+
+	/**
+	 * The maximum number of empty buckets skipped over by a single operation, per bucket it is allowed to move.
+	 */
+	private static final int EMPTY_VISITS_PER_STEP = 10;
+
+	/**
+	 * The number of bulk tasks aimed for per thread, so a thread that finishes early can take over part of another's
+	 * range.
+	 */
+	private static final int TASKS_PER_THREAD = 4;
+
+	/**
+	 * The size at which a bucket list is turned into a balanced tree.
+	 */
+	private static final int TREEIFY_THRESHOLD = 8;
+
+	/**
+	 * The size at which a bucket tree is turned back into a list.
+	 */
+	private static final int UNTREEIFY_THRESHOLD = 6;
+
+	// The current table and, while growing, the table being migrated away from. Empty buckets are left null.
+	Bucket[] list;
+	private Bucket[] oldList;
+
+	// Every bucket of the old table below this index has already been moved.
+	private int migrationIndex;
+
+	// Growth attributes.
+	private boolean canGrow;
+	private double maxLoadFactor;
+
+	/**
+	 * Default constructor. Starts with 16 buckets and grows incrementally past a load factor of 0.75.
+	 */
+	public HashMap()
+	{
+		this(DEFAULT_TABLE_SIZE, DEFAULT_LOAD_FACTOR);
+	}
+
+	/** Creates a table with a fixed number of buckets that never grows.
+	 * @param tableSize The number of buckets.
+	 */
 	public HashMap(int tableSize)
 	{
-		list = (DoublyLinkedList<Entry<K,V>>[]) new Object[tableSize];
-		for (int i = 0 ; i < list.length ; i++)
-		{
-			list[i] = new DoublyLinkedList<Entry<K,V>>();
-		}
+		if (tableSize <= 0)
+			throw new IllegalArgumentException("The table size must be a positive integer.");
+
+		list = newTable(tableSize);
+		canGrow = false;
+	}
+
+	/** Creates a table that grows incrementally whenever the load factor is exceeded.
+	 * @param tableSize The initial number of buckets.
+	 * @param maxLoadFactor The maximum ratio of entries to buckets before the table starts growing.
+	 */
+	public HashMap(int tableSize, double maxLoadFactor)
+	{
+		if (tableSize <= 0)
+			throw new IllegalArgumentException("The table size must be a positive integer.");
+		if (!(maxLoadFactor > 0))
+			throw new IllegalArgumentException("The load factor must be positive.");
+
+		list = newTable(tableSize);
+		canGrow = true;
+		this.maxLoadFactor = maxLoadFactor;
 	}
-	
-	private int hash(K key)
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Bucket[] newTable(int tableSize)
+	{
+		return (Bucket[]) new HashMap.Bucket[tableSize];
+	}
+
+	private int hash(K key, int tableSize)
 	{
-		return key.hashCode() % list.length;
+		// Spreading the higher bits downwards, then masking the sign bit so negative hash codes stay in range.
+		int h = key.hashCode();
+		return ((h ^ (h >>> 16)) & 0x7fffffff) % tableSize;
 	}
 
 	public Entry<K, V> get(K key) {
 		if (key == null)
 			throw new IllegalArgumentException("Null values cannot be passed.");
-		
-		int hashIndex = hash(key);
-		if (list[hashIndex].isEmpty())
+
+		migrate();
+
+		Entry<K,V> entry = search(list, key);
+		if (entry == null && oldList != null)
 		{
-			return null;
+			entry = search(oldList, key);
 		}
-		else
+		return entry;
+	}
+
+	/** Inserts a new entry into the map. If the key is already in the map, its value is replaced instead.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
+	public void put(K key, V value) {
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		migrate();
+
+		// A key that has not been migrated yet is updated where it is, so it never appears in both tables.
+		if (oldList != null)
 		{
-			for (Entry<K,V> entry : list[hashIndex])
+			Entry<K,V> entry = search(oldList, key);
+			if (entry != null)
 			{
-				if (entry.hasSameKey(key))
-				{
-					return entry;
-				}
+				entry.setValue(value);
+				return;
 			}
-			return null;
+		}
+
+		if (bucket(list, key, true).put(key, value))
+		{
+			incrementSize();
+
+			if (canGrow && size() > maxLoadFactor * list.length)
+				grow();
 		}
 	}
 
-	public void put(K key, V value) {
+	public Entry<K, V> remove(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		migrate();
+
+		Entry<K,V> entry = delete(list, key);
+		if (entry == null && oldList != null)
+		{
+			entry = delete(oldList, key);
+		}
+
+		if (entry != null)
+			decrementSize();
+		return entry;
+	}
+
+	/** Inserts the key and value only if the key is not in the map yet. The key is looked up once, and a new entry is
+	 * added straight to its bucket.
+	 * @param key The key.
+	 * @param value The value.
+	 * @return The value already mapped to the key. Returns null if the key was absent and has been inserted.
+	 */
+	public V putIfAbsent(K key, V value)
+	{
 		if (key == null || value == null)
 			throw new IllegalArgumentException("Null values cannot be passed.");
-		
-		Entry<K,V> entry = new Entry<>(key,value);
-		list[hash(key)].addStart(entry);
-		incrementSize();
+
+		Entry<K,V> entry = get(key);
+		if (entry != null)
+			return entry.getValue();
+
+		insert(new Entry<>(key, value));
+		return null;
 	}
 
-	public Entry<K, V> remove(K key) {
-		if (key == null)
+	/** Computes a new value for the key from its current value, which is null if the key is absent. If the function
+	 * returns null, the key is removed instead. The key is looked up once: an existing entry is changed in place, and a
+	 * new one is added straight to its bucket. The function must not change the map.
+	 * @param key The key.
+	 * @param remappingFunction Computes the new value from the key and the current value.
+	 * @return The new value. Returns null if the key is absent afterwards.
+	 */
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction)
+	{
+		if (key == null || remappingFunction == null)
 			throw new IllegalArgumentException("Null values cannot be passed.");
-		
-		int hashIndex = hash(key);
-		if (list[hashIndex].isEmpty())
+
+		Entry<K,V> entry = get(key);
+		V oldValue = entry == null ? null : entry.getValue();
+		V value = remappingFunction.apply(key, oldValue);
+
+		if (value == null)
 		{
-			return null;
+			if (entry != null)
+				discard(key);
 		}
+		else if (entry != null)
+			entry.setValue(value);
 		else
+			insert(new Entry<>(key, value));
+		return value;
+	}
+
+	/** Adds an entry whose key is in neither table. Only called right after a lookup, which already did its share of
+	 * the migration, or by a map moving its own entries over.
+	 * @param entry The entry.
+	 */
+	void insert(Entry<K,V> entry)
+	{
+		bucket(list, entry.getKey(), true).add(entry);
+		incrementSize();
+
+		if (canGrow && size() > maxLoadFactor * list.length)
+			grow();
+	}
+
+	/** Removes a key that is known to be in the map. Only called right after a lookup.
+	 * @param key The key.
+	 */
+	private void discard(K key)
+	{
+		if (delete(list, key) == null && oldList != null)
+			delete(oldList, key);
+		decrementSize();
+	}
+
+	/** Returns the bucket the key hashes to.
+	 * @param table The table.
+	 * @param key The key.
+	 * @param shouldCreate Whether an empty bucket should be created if there is none yet.
+	 * @return The bucket. Returns null if there is none and shouldCreate is false.
+	 */
+	private Bucket bucket(Bucket[] table, K key, boolean shouldCreate)
+	{
+		int hashIndex = hash(key, table.length);
+		if (table[hashIndex] == null && shouldCreate)
+			table[hashIndex] = new Bucket();
+		return table[hashIndex];
+	}
+
+	private Entry<K,V> search(Bucket[] table, K key)
+	{
+		Bucket bucket = bucket(table, key, false);
+		return bucket == null ? null : bucket.get(key);
+	}
+
+	private Entry<K,V> delete(Bucket[] table, K key)
+	{
+		int hashIndex = hash(key, table.length);
+		if (table[hashIndex] == null)
+			return null;
+
+		Entry<K,V> entry = table[hashIndex].remove(key);
+
+		// Dropping empty buckets keeps the table itself as the only memory cost of a sparse map.
+		if (table[hashIndex].isEmpty())
+			table[hashIndex] = null;
+		return entry;
+	}
+
+	/**
+	 * Allocates a table twice the size and starts migrating into it. The entries themselves are moved later by
+	 * migrate().
+	 */
+	private void grow()
+	{
+		// A previous migration is normally long finished by now, but it has to end before a new one can start.
+		if (oldList != null)
+			finishMigration();
+
+		oldList = list;
+		list = newTable(oldList.length * 2);
+		migrationIndex = 0;
+	}
+
+	/**
+	 * Moves a bounded number of buckets from the old table to the current one. At most MIGRATION_STEP non-empty
+	 * buckets are moved, and at most EMPTY_VISITS_PER_STEP empty buckets are skipped for each of them.
+	 */
+	private void migrate()
+	{
+		if (oldList == null)
+			return;
+
+		int moved = 0;
+		int visited = 0;
+		while (migrationIndex < oldList.length && moved < MIGRATION_STEP
+				&& visited < MIGRATION_STEP * EMPTY_VISITS_PER_STEP)
 		{
-			int index = 0;
-			for (Entry<K,V> entry : list[hashIndex])
+			if (oldList[migrationIndex] != null)
 			{
-				if (entry.hasSameKey(key))
-				{
-					Entry<K,V> temp = list[hashIndex].removeAtIndex(index);
-					decrementSize();
-					return temp;
-				}
-				index++;
+				moveBucket(migrationIndex);
+				moved++;
 			}
-			return null;
+			migrationIndex++;
+			visited++;
+		}
+
+		if (migrationIndex == oldList.length)
+			oldList = null;
+	}
+
+	/**
+	 * Moves every remaining bucket of the old table at once.
+	 */
+	private void finishMigration()
+	{
+		while (migrationIndex < oldList.length)
+		{
+			if (oldList[migrationIndex] != null)
+				moveBucket(migrationIndex);
+			migrationIndex++;
 		}
+		oldList = null;
 	}
-	
+
+	/** Moves a single bucket of the old table into the current one.
+	 * @param index The index of the bucket in the old table.
+	 */
+	private void moveBucket(int index)
+	{
+		for (Entry<K,V> entry : oldList[index].entries())
+		{
+			bucket(list, entry.getKey(), true).add(entry);
+		}
+		oldList[index] = null;
+	}
+
 	public int tableSize()
 	{
 		return list.length;
 	}
-	
+
+	/** Returns whether entries are still being moved from a smaller table.
+	 * @return True if a migration is in progress. False otherwise.
+	 */
+	public boolean isMigrating()
+	{
+		return oldList != null;
+	}
+
+	/** Performs the action on every entry, in no particular order.
+	 * @param parallelismThreshold The number of entries from which the work is split across threads. Long.MAX_VALUE
+	 * keeps it on the calling thread, and 1 splits it as much as possible.
+	 * @param action The action.
+	 */
+	public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action)
+	{
+		if (action == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		bulk(parallelismThreshold, entry ->
+		{
+			action.accept(entry.getKey(), entry.getValue());
+			return null;
+		}, null, null);
+	}
+
+	/** Returns a non-null result of the function on some entry. Once one is found, the remaining work is skipped.
+	 * @param <U> The result type.
+	 * @param parallelismThreshold The number of entries from which the work is split across threads.
+	 * @param searchFunction Returns a result for a matching entry, and null otherwise.
+	 * @return The result for any one matching entry. Returns null if no entry matches.
+	 */
+	public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction)
+	{
+		if (searchFunction == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		AtomicReference<U> found = new AtomicReference<>();
+		bulk(parallelismThreshold, entry -> searchFunction.apply(entry.getKey(), entry.getValue()), null, found);
+		return found.get();
+	}
+
+	/** Transforms every entry and combines the results. Entries the transformer returns null for are left out.
+	 * @param <U> The result type.
+	 * @param parallelismThreshold The number of entries from which the work is split across threads.
+	 * @param transformer Turns an entry into a result.
+	 * @param reducer Combines two results. It must be associative and commutative, since the order is not fixed.
+	 * @return The combined result. Returns null if there were no results.
+	 */
+	public <U> U reduce(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer)
+	{
+		if (transformer == null || reducer == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		return bulk(parallelismThreshold, entry -> transformer.apply(entry.getKey(), entry.getValue()), reducer, null);
+	}
+
+	/** Transforms every entry into a long and combines the results, without boxing any of them.
+	 * @param parallelismThreshold The number of entries from which the work is split across threads.
+	 * @param transformer Turns an entry into a long.
+	 * @param basis The identity of the reducer, such as 0 for a sum. Every thread starts from it.
+	 * @param reducer Combines two longs. It must be associative and commutative, since the order is not fixed.
+	 * @return The combined result.
+	 */
+	public long reduceToLong(long parallelismThreshold, ToLongBiFunction<? super K, ? super V> transformer,
+			long basis, LongBinaryOperator reducer)
+	{
+		if (transformer == null || reducer == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		LongBulkTask task = new LongBulkTask(0, prepareBulk(), grain(parallelismThreshold), transformer, basis, reducer);
+		return isParallel(parallelismThreshold) ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+	}
+
+	private <U> U bulk(long parallelismThreshold, Function<Entry<K,V>, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer, AtomicReference<U> found)
+	{
+		BulkTask<U> task = new BulkTask<>(0, prepareBulk(), grain(parallelismThreshold), transformer, reducer, found);
+		return isParallel(parallelismThreshold) ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+	}
+
+	/** Ends any migration, so the bulk operation only has the current table to walk.
+	 * @return The number of buckets to walk.
+	 */
+	private int prepareBulk()
+	{
+		if (oldList != null)
+			finishMigration();
+		return list.length;
+	}
+
+	private boolean isParallel(long parallelismThreshold)
+	{
+		return size() >= Math.max(parallelismThreshold, 1) && ForkJoinPool.getCommonPoolParallelism() > 1;
+	}
+
+	/** Returns the number of buckets a single bulk task walks without splitting further. Each task gets roughly as many
+	 * entries as the threshold, but the table is never cut into more than TASKS_PER_THREAD tasks per thread.
+	 * @param parallelismThreshold The number of entries from which the work is split across threads.
+	 * @return The number of buckets.
+	 */
+	private int grain(long parallelismThreshold)
+	{
+		if (!isParallel(parallelismThreshold))
+			return list.length;
+
+		long byThreshold = (long) list.length * Math.max(parallelismThreshold, 1) / size();
+		long byThreads = list.length / ((long) ForkJoinPool.getCommonPoolParallelism() * TASKS_PER_THREAD);
+		return (int) Math.max(1, Math.min(list.length, Math.max(byThreshold, byThreads)));
+	}
+
+	/** Returns an iterator over every entry, in no particular order. The map must not be changed while iterating.
+	 * @return The iterator.
+	 */
+	public Iterator<Entry<K,V>> iterator()
+	{
+		// Anonymous iterator class.
+		Iterator<Entry<K,V>> temp = new Iterator<Entry<K,V>>()
+		{
+			// The table being walked, which moves on to the old table once the current one is done.
+			private Bucket[] table = list;
+			private int index = 0;
+			private Iterator<Entry<K,V>> bucketIterator = null;
+
+			public boolean hasNext()
+			{
+				while (bucketIterator == null || !bucketIterator.hasNext())
+				{
+					if (index == table.length)
+					{
+						if (oldList == null || table == oldList)
+							return false;
+						table = oldList;
+						index = 0;
+					}
+					else
+					{
+						Bucket bucket = table[index++];
+						bucketIterator = bucket == null ? null : bucket.entries().iterator();
+					}
+				}
+				return true;
+			}
+
+			public Entry<K,V> next()
+			{
+				if (!hasNext())
+					throw new IndexOutOfBoundsException("Iterator has no next!");
+
+				return bucketIterator.next();
+			}
+		};
+
+		return temp;
+	}
+
 	public String toString()
 	{
 		StringBuilder output = new StringBuilder();
+		appendTable(output, list, "");
+		if (oldList != null)
+			appendTable(output, oldList, "old ");
+
+		return output.toString();
+	}
+
+	private void appendTable(StringBuilder output, Bucket[] table, String label)
+	{
 		StringBuilder temp;
-		for (int i = 0 ; i < list.length ; i++)
+		for (int i = 0 ; i < table.length ; i++)
 		{
-			temp = new StringBuilder(i + ": ");
-			temp.append(list[i].toString());
+			temp = new StringBuilder(label + i + ": ");
+			if (table[i] != null)
+				temp.append(table[i].toString());
 			temp.append("\n");
 			output.append(temp);
 		}
-		
-		return output.toString();
+	}
+
+	/** Walks a range of buckets, splitting it in half and forking one half until it is no longer than the grain.
+	 * @author Sobhan Mehrpour
+	 * @param <U> The result type.
+	 */
+	private class BulkTask<U> extends RecursiveTask<U>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final int grain;
+		private final Function<Entry<K,V>, ? extends U> transformer;
+
+		// Null for forEach and search. The first non-null result of a search is put in found instead, which then stops
+		// every task.
+		private final BiFunction<? super U, ? super U, ? extends U> reducer;
+		private final AtomicReference<U> found;
+
+		public BulkTask(int from, int to, int grain, Function<Entry<K,V>, ? extends U> transformer,
+				BiFunction<? super U, ? super U, ? extends U> reducer, AtomicReference<U> found)
+		{
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.transformer = transformer;
+			this.reducer = reducer;
+			this.found = found;
+		}
+
+		protected U compute()
+		{
+			if (to - from > grain)
+			{
+				int middle = (from + to) >>> 1;
+				BulkTask<U> left = new BulkTask<>(from, middle, grain, transformer, reducer, found);
+				left.fork();
+				U rightResult = new BulkTask<>(middle, to, grain, transformer, reducer, found).compute();
+				return combine(left.join(), rightResult);
+			}
+
+			U result = null;
+			for (int i = from ; i < to ; i++)
+			{
+				if (found != null && found.get() != null)
+					return null;
+				if (list[i] == null)
+					continue;
+
+				for (Entry<K,V> entry : list[i].entries())
+				{
+					U value = transformer.apply(entry);
+					if (value == null)
+						continue;
+					if (found != null)
+					{
+						found.compareAndSet(null, value);
+						return null;
+					}
+					result = combine(result, value);
+				}
+			}
+			return result;
+		}
+
+		private U combine(U first, U second)
+		{
+			if (first == null)
+				return second;
+			if (second == null || reducer == null)
+				return first;
+			return reducer.apply(first, second);
+		}
+	}
+
+	/** The same as BulkTask, for reductions to a long.
+	 * @author Sobhan Mehrpour
+	 */
+	private class LongBulkTask extends RecursiveTask<Long>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final int grain;
+		private final ToLongBiFunction<? super K, ? super V> transformer;
+		private final long basis;
+		private final LongBinaryOperator reducer;
+
+		public LongBulkTask(int from, int to, int grain, ToLongBiFunction<? super K, ? super V> transformer,
+				long basis, LongBinaryOperator reducer)
+		{
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.transformer = transformer;
+			this.basis = basis;
+			this.reducer = reducer;
+		}
+
+		protected Long compute()
+		{
+			if (to - from > grain)
+			{
+				int middle = (from + to) >>> 1;
+				LongBulkTask left = new LongBulkTask(from, middle, grain, transformer, basis, reducer);
+				left.fork();
+				long rightResult = new LongBulkTask(middle, to, grain, transformer, basis, reducer).compute();
+				return reducer.applyAsLong(left.join(), rightResult);
+			}
+
+			long result = basis;
+			for (int i = from ; i < to ; i++)
+			{
+				if (list[i] == null)
+					continue;
+
+				for (Entry<K,V> entry : list[i].entries())
+					result = reducer.applyAsLong(result, transformer.applyAsLong(entry.getKey(), entry.getValue()));
+			}
+			return result;
+		}
+	}
+
+	/** A single bucket of the table. It holds its entries in a list while it is small and in an AVL tree ordered by
+	 * key once it grows past TREEIFY_THRESHOLD.
+	 * @author Sobhan Mehrpour
+	 */
+	private class Bucket
+	{
+		// Exactly one of these is in use at a time.
+		private DoublyLinkedList<Entry<K,V>> list;
+		private TreeNode root;
+
+		private int size;
+
+		// Set by the recursive delete to report which entry it removed.
+		private Entry<K,V> removed;
+
+		/**
+		 * Creates an empty bucket in list form.
+		 */
+		public Bucket()
+		{
+			list = new DoublyLinkedList<Entry<K,V>>();
+			size = 0;
+		}
+
+		public boolean isEmpty()
+		{
+			return size == 0;
+		}
+
+		public boolean isTree()
+		{
+			return list == null;
+		}
+
+		public Entry<K,V> get(K key)
+		{
+			if (isTree())
+			{
+				// Standard binary search down the tree.
+				TreeNode node = root;
+				while (node != null)
+				{
+					int comparison = key.compareTo(node.entry.getKey());
+					if (comparison == 0)
+						return node.entry;
+					node = comparison < 0 ? node.left : node.right;
+				}
+				return null;
+			}
+
+			for (Entry<K,V> entry : list)
+			{
+				if (entry.hasSameKey(key))
+					return entry;
+			}
+			return null;
+		}
+
+		/** Inserts the key and value, or replaces the value if the key is already in the bucket.
+		 * @param key The key.
+		 * @param value The value.
+		 * @return True if a new entry was added. False if an existing value was replaced.
+		 */
+		public boolean put(K key, V value)
+		{
+			Entry<K,V> entry = get(key);
+			if (entry != null)
+			{
+				entry.setValue(value);
+				return false;
+			}
+
+			add(new Entry<>(key, value));
+			return true;
+		}
+
+		/** Adds an entry whose key is not in the bucket yet.
+		 * @param entry The entry.
+		 */
+		public void add(Entry<K,V> entry)
+		{
+			if (isTree())
+			{
+				root = insert(root, entry);
+			}
+			else
+			{
+				list.addStart(entry);
+				if (list.size() >= TREEIFY_THRESHOLD)
+					treeify();
+			}
+			size++;
+		}
+
+		public Entry<K,V> remove(K key)
+		{
+			if (isTree())
+			{
+				removed = null;
+				root = delete(root, key);
+				if (removed != null)
+				{
+					size--;
+					if (size <= UNTREEIFY_THRESHOLD)
+						untreeify();
+				}
+				return removed;
+			}
+
+			int index = 0;
+			for (Entry<K,V> entry : list)
+			{
+				if (entry.hasSameKey(key))
+				{
+					size--;
+					return list.removeAtIndex(index);
+				}
+				index++;
+			}
+			return null;
+		}
+
+		/** Returns the entries of the bucket. Tree buckets return them in key order.
+		 * @return The entries.
+		 */
+		public DoublyLinkedList<Entry<K,V>> entries()
+		{
+			if (!isTree())
+				return list;
+
+			DoublyLinkedList<Entry<K,V>> output = new DoublyLinkedList<Entry<K,V>>();
+			collect(root, output);
+			return output;
+		}
+
+		private void treeify()
+		{
+			DoublyLinkedList<Entry<K,V>> temp = list;
+			list = null;
+			root = null;
+			for (Entry<K,V> entry : temp)
+				root = insert(root, entry);
+		}
+
+		private void untreeify()
+		{
+			list = entries();
+			root = null;
+		}
+
+		private void collect(TreeNode node, DoublyLinkedList<Entry<K,V>> output)
+		{
+			if (node == null)
+				return;
+
+			collect(node.left, output);
+			output.addLast(node.entry);
+			collect(node.right, output);
+		}
+
+		private int height(TreeNode node)
+		{
+			return node == null ? 0 : node.height;
+		}
+
+		private void updateHeight(TreeNode node)
+		{
+			node.height = 1 + Math.max(height(node.left), height(node.right));
+		}
+
+		private TreeNode rotateRight(TreeNode node)
+		{
+			TreeNode child = node.left;
+			node.left = child.right;
+			child.right = node;
+			updateHeight(node);
+			updateHeight(child);
+			return child;
+		}
+
+		private TreeNode rotateLeft(TreeNode node)
+		{
+			TreeNode child = node.right;
+			node.right = child.left;
+			child.left = node;
+			updateHeight(node);
+			updateHeight(child);
+			return child;
+		}
+
+		/** Restores the AVL property at the node after one of its subtrees changed height by one.
+		 * @param node The root of the subtree.
+		 * @return The new root of the subtree.
+		 */
+		private TreeNode rebalance(TreeNode node)
+		{
+			updateHeight(node);
+			int balance = height(node.left) - height(node.right);
+
+			// Case 1: Left heavy.
+			if (balance > 1)
+			{
+				if (height(node.left.left) < height(node.left.right))
+					node.left = rotateLeft(node.left);
+				return rotateRight(node);
+			}
+			// Case 2: Right heavy.
+			else if (balance < -1)
+			{
+				if (height(node.right.right) < height(node.right.left))
+					node.right = rotateRight(node.right);
+				return rotateLeft(node);
+			}
+			// Case 3: Balanced.
+			else
+			{
+				return node;
+			}
+		}
+
+		private TreeNode insert(TreeNode node, Entry<K,V> entry)
+		{
+			if (node == null)
+				return new TreeNode(entry);
+
+			if (entry.compareTo(node.entry) < 0)
+				node.left = insert(node.left, entry);
+			else
+				node.right = insert(node.right, entry);
+			return rebalance(node);
+		}
+
+		private TreeNode delete(TreeNode node, K key)
+		{
+			if (node == null)
+				return null;
+
+			int comparison = key.compareTo(node.entry.getKey());
+			if (comparison < 0)
+			{
+				node.left = delete(node.left, key);
+			}
+			else if (comparison > 0)
+			{
+				node.right = delete(node.right, key);
+			}
+			else
+			{
+				removed = node.entry;
+
+				// Nodes with at most one child are replaced by that child.
+				if (node.left == null)
+					return node.right;
+				if (node.right == null)
+					return node.left;
+
+				// Otherwise the node takes the entry of its successor, which is then deleted instead.
+				TreeNode successor = node.right;
+				while (successor.left != null)
+					successor = successor.left;
+				node.entry = successor.entry;
+				node.right = deleteMinimum(node.right);
+			}
+			return rebalance(node);
+		}
+
+		private TreeNode deleteMinimum(TreeNode node)
+		{
+			if (node.left == null)
+				return node.right;
+
+			node.left = deleteMinimum(node.left);
+			return rebalance(node);
+		}
+
+		public String toString()
+		{
+			return entries().toString();
+		}
+	}
+
+	/** A node of a bucket tree.
+	 * @author Sobhan Mehrpour
+	 */
+	private class TreeNode
+	{
+		private Entry<K,V> entry;
+		private TreeNode left;
+		private TreeNode right;
+		private int height;
+
+		public TreeNode(Entry<K,V> entry)
+		{
+			this.entry = entry;
+			height = 1;
+		}
 	}
 
 }
@@ -0,0 +1,285 @@
+package maps;
+
+/** A hash map from int keys to int values. Keys and values are kept unboxed in parallel arrays and looked up with
+ * linear probing, so get and put never allocate. A key of 0 marks an empty slot, which is why the mapping for the key 0
+ * itself is kept outside of the arrays.
+ * @author Sobhan Mehrpour
+ */
+public class IntIntHashMap
+{
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final double DEFAULT_LOAD_FACTOR = 0.75;
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	/**
+	 * The key that marks an empty slot.
+	 */
+	private static final int EMPTY = 0;
+
+	// The parallel arrays.
+	private int[] keys;
+	private int[] values;
+
+	// The mapping for the key 0, which cannot be stored in the arrays.
+	private boolean hasZeroKey;
+	private int zeroValue;
+
+	private int size;
+	private double loadFactor;
+	private int threshold;
+
+	/**
+	 * Default constructor. Starts with 16 slots and a load factor of 0.75.
+	 */
+	public IntIntHashMap()
+	{
+		this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+	}
+
+	/** Starting capacity is left up to the user. The load factor defaults to 0.75.
+	 * @param startCapacity The initial number of slots. It is rounded up to a power of two.
+	 */
+	public IntIntHashMap(int startCapacity)
+	{
+		this(startCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	/** A full constructor that allows the user to decide both the start capacity and the load factor.
+	 * @param startCapacity The initial number of slots. It is rounded up to a power of two.
+	 * @param loadFactor The maximum ratio of entries to slots before the table doubles. Must be between 0 and 1.
+	 */
+	public IntIntHashMap(int startCapacity, double loadFactor)
+	{
+		// Handling exceptional cases.
+		if (startCapacity < 0)
+			throw new IllegalArgumentException("The start capacity cannot be negative.");
+		if (!(loadFactor > 0 && loadFactor < 1))
+			throw new IllegalArgumentException("The load factor must be between 0 and 1.");
+
+		this.loadFactor = loadFactor;
+		size = 0;
+		allocate(tableSizeFor(startCapacity));
+	}
+
+	private static int tableSizeFor(int capacity)
+	{
+		if (capacity >= MAXIMUM_CAPACITY)
+			return MAXIMUM_CAPACITY;
+
+		int size = 2;
+		while (size < capacity)
+			size <<= 1;
+		return size;
+	}
+
+	private void allocate(int capacity)
+	{
+		keys = new int[capacity];
+		values = new int[capacity];
+		threshold = (int) Math.min(capacity - 1, capacity * loadFactor);
+	}
+
+	/** Scrambles the key so that sequential keys do not end up in one long probe run.
+	 * @param key The key.
+	 * @return The mixed hash.
+	 */
+	private static int hash(int key)
+	{
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/** Finds the slot holding the key, which must not be 0.
+	 * @param key The key.
+	 * @return The index of the slot. Returns -1 if the key is not in the map.
+	 */
+	private int indexOf(int key)
+	{
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (keys[index] != EMPTY)
+		{
+			if (keys[index] == key)
+				return index;
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	/** Returns the value mapped to the key.
+	 * @param key The key.
+	 * @return The value. Returns 0 if the key is not in the map.
+	 */
+	public int get(int key)
+	{
+		return getOrDefault(key, 0);
+	}
+
+	/** Returns the value mapped to the key, or the given default if there is none.
+	 * @param key The key.
+	 * @param defaultValue The value returned if the key is not in the map.
+	 * @return The value mapped to the key, or the default.
+	 */
+	public int getOrDefault(int key, int defaultValue)
+	{
+		if (key == EMPTY)
+			return hasZeroKey ? zeroValue : defaultValue;
+
+		int index = indexOf(key);
+		return index == -1 ? defaultValue : values[index];
+	}
+
+	/** Returns whether the key is in the map.
+	 * @param key The key.
+	 * @return True if the key is in the map. False otherwise.
+	 */
+	public boolean containsKey(int key)
+	{
+		if (key == EMPTY)
+			return hasZeroKey;
+
+		return indexOf(key) != -1;
+	}
+
+	/** Maps the key to the value, replacing any previous value.
+	 * @param key The key.
+	 * @param value The value.
+	 */
+	public void put(int key, int value)
+	{
+		if (key == EMPTY)
+		{
+			if (!hasZeroKey)
+				size++;
+			hasZeroKey = true;
+			zeroValue = value;
+			return;
+		}
+
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (keys[index] != EMPTY)
+		{
+			if (keys[index] == key)
+			{
+				values[index] = value;
+				return;
+			}
+			index = (index + 1) & mask;
+		}
+
+		keys[index] = key;
+		values[index] = value;
+		if (++size > threshold)
+			resize();
+	}
+
+	/** Removes the mapping for the key.
+	 * @param key The key.
+	 * @return True if the key was in the map. False otherwise.
+	 */
+	public boolean remove(int key)
+	{
+		if (key == EMPTY)
+		{
+			if (!hasZeroKey)
+				return false;
+			hasZeroKey = false;
+			zeroValue = 0;
+			size--;
+			return true;
+		}
+
+		int index = indexOf(key);
+		if (index == -1)
+			return false;
+
+		deleteSlot(index);
+		size--;
+		return true;
+	}
+
+	/** Empties the slot and shifts later keys of the same probe run backwards, so no tombstones are needed.
+	 * @param index The slot being emptied.
+	 */
+	private void deleteSlot(int index)
+	{
+		int mask = keys.length - 1;
+		int hole = index;
+		int position = (index + 1) & mask;
+
+		while (keys[position] != EMPTY)
+		{
+			int home = hash(keys[position]) & mask;
+			if (((hole - home) & mask) < ((position - home) & mask))
+			{
+				keys[hole] = keys[position];
+				values[hole] = values[position];
+				hole = position;
+			}
+			position = (position + 1) & mask;
+		}
+
+		keys[hole] = EMPTY;
+		values[hole] = 0;
+	}
+
+	private void resize()
+	{
+		if (keys.length == MAXIMUM_CAPACITY)
+		{
+			if (size >= keys.length - 1)
+				throw new IllegalStateException("The map has reached its maximum capacity.");
+			return;
+		}
+
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(oldKeys.length * 2);
+
+		int mask = keys.length - 1;
+		for (int i = 0 ; i < oldKeys.length ; i++)
+		{
+			if (oldKeys[i] == EMPTY)
+				continue;
+
+			int index = hash(oldKeys[i]) & mask;
+			while (keys[index] != EMPTY)
+				index = (index + 1) & mask;
+			keys[index] = oldKeys[i];
+			values[index] = oldValues[i];
+		}
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/** Returns the number of slots in the table.
+	 * @return The current table size.
+	 */
+	public int tableSize()
+	{
+		return keys.length;
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+		if (hasZeroKey)
+			output.append("(0, " + zeroValue + ") ");
+		for (int i = 0 ; i < keys.length ; i++)
+		{
+			if (keys[i] != EMPTY)
+				output.append("(" + keys[i] + ", " + values[i] + ") ");
+		}
+		output.append("]");
+		return output.toString();
+	}
+}
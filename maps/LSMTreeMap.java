@@ -0,0 +1,1133 @@
+package maps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Iterator;
+
+import basicstructures.ArrayList;
+import priorityqueues.Entry;
+
+/** A persistent sorted map built as a log-structured merge tree. Writes go to a write-ahead log and an in-memory
+ * B+ tree (the memtable). Once the memtable is full it is written out as an immutable sorted run file, so disk writes
+ * are always sequential. <br>
+ * Runs are merged with size-tiered compaction. A flushed run starts at level 0, and once a level holds as many runs as
+ * the compaction threshold they are merged into a single run of the next level. Every level therefore holds runs of
+ * roughly the same size, a merge never rewrites a large run along with small ones, and each entry is rewritten about
+ * once per level, which is logarithmic in the size of the map. Every run keeps a sparse index
+ * and a Bloom filter in memory, so a lookup reads at most one small block per run and usually skips runs that cannot
+ * hold the key. Opening a directory again reloads its runs and replays the log. <br>
+ * Keys and values are stored with Java serialization, and the Bloom filters use hashCode, so keys must have a hash
+ * code that is stable between runs of the program. Entries returned by get are copies; changing their value does not
+ * change the map.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class LSMTreeMap <K extends Comparable<K> & Serializable, V extends Serializable> extends Map<K,V>
+	implements AutoCloseable
+{
+	private static final int DEFAULT_MEMTABLE_LIMIT = 4096;
+	private static final int DEFAULT_COMPACTION_THRESHOLD = 4;
+
+	/**
+	 * The number of records between two keys of a run's sparse index.
+	 */
+	private static final int INDEX_INTERVAL = 16;
+
+	/**
+	 * The number of Bloom filter bits per entry. Ten bits give roughly a one percent false positive rate.
+	 */
+	private static final int BLOOM_BITS_PER_ENTRY = 10;
+	private static final int BLOOM_HASHES = 7;
+
+	private static final String LOG_NAME = "wal.log";
+	private static final String RUN_SUFFIX = ".dat";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	// Run files are named after their sequence number, their level, and the oldest sequence number they cover. A run
+	// written by a merge covers the runs it was merged from.
+	private static final String RUN_PREFIX = "run-";
+
+	// Log record types.
+	private static final byte REMOVE = 0;
+	private static final byte PUT = 1;
+
+	private final File directory;
+	private final int memtableLimit;
+	private final int compactionThreshold;
+
+	private BPlusTreeMap<K, Slot<V>> memtable;
+	private DataOutputStream log;
+
+	// The sorted runs on disk, oldest first.
+	private ArrayList<Run> runs;
+	private long nextSequence;
+
+	/** Opens the map stored in the directory, creating it if needed. Uses a memtable of 4096 entries and merges runs
+	 * four at a time.
+	 * @param directory The directory holding the log and run files.
+	 */
+	public LSMTreeMap(File directory)
+	{
+		this(directory, DEFAULT_MEMTABLE_LIMIT, DEFAULT_COMPACTION_THRESHOLD);
+	}
+
+	/** Full constructor. Opens the map stored in the directory, creating it if needed.
+	 * @param directory The directory holding the log and run files.
+	 * @param memtableLimit The number of entries the memtable holds before it is written out as a run.
+	 * @param compactionThreshold The number of runs of one level that are merged into a run of the next level. Must be
+	 * at least 2.
+	 */
+	public LSMTreeMap(File directory, int memtableLimit, int compactionThreshold)
+	{
+		// Handling exceptional cases.
+		if (directory == null)
+			throw new IllegalArgumentException("The directory cannot be null.");
+		if (memtableLimit <= 0)
+			throw new IllegalArgumentException("The memtable limit must be a positive integer.");
+		if (compactionThreshold < 2)
+			throw new IllegalArgumentException("The compaction threshold must be at least 2.");
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new UncheckedIOException(new IOException("Could not create directory " + directory + "."));
+
+		this.directory = directory;
+		this.memtableLimit = memtableLimit;
+		this.compactionThreshold = compactionThreshold;
+		memtable = new BPlusTreeMap<K, Slot<V>>();
+		runs = new ArrayList<Run>(true);
+
+		try
+		{
+			loadRuns();
+			replayLog();
+			log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile(), true)));
+
+			// Writing the replayed entries out as a run empties the log, so new records never follow a torn one.
+			if (memtable.isEmpty())
+				resetLog();
+			else
+				flush();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+
+		// The number of live entries is not stored anywhere, so it is counted once.
+		for (Iterator<Entry<K,V>> iterator = range(null, null).iterator() ; iterator.hasNext() ; iterator.next())
+			incrementSize();
+	}
+
+	private File logFile()
+	{
+		return new File(directory, LOG_NAME);
+	}
+
+	/** Finds the existing run files and rebuilds their indexes, oldest first. Runs left behind by a merge that was
+	 * interrupted after writing its output are deleted, along with unfinished temporary files.
+	 * @throws IOException If a run cannot be read.
+	 */
+	private void loadRuns() throws IOException
+	{
+		// Sorting by sequence number sorts the runs by age.
+		File[] files = directory.listFiles();
+		java.util.Arrays.sort(files, (file1, file2) -> Long.compare(sequenceOf(file1), sequenceOf(file2)));
+
+		// Walking back from the newest run, anything a newer merge covers has already been merged into it.
+		ArrayList<Run> found = new ArrayList<Run>(true);
+		long covered = Long.MAX_VALUE;
+		for (int i = files.length - 1 ; i >= 0 ; i--)
+		{
+			File file = files[i];
+			long[] fields = fieldsOf(file);
+			if (file.getName().endsWith(TEMP_SUFFIX))
+			{
+				deleteFile(file);
+			}
+			else if (fields != null)
+			{
+				nextSequence = Math.max(nextSequence, fields[0] + 1);
+				if (fields[0] >= covered)
+					deleteFile(file);
+				else
+				{
+					found.addStart(Run.load(file, (int) fields[1], fields[2]));
+					covered = fields[2];
+				}
+			}
+		}
+		runs = found;
+	}
+
+	/** Reads the numbers in the name of a run file.
+	 * @param file The file.
+	 * @return The sequence number, level, and oldest sequence number covered. Returns null if the file is not a run.
+	 */
+	private static long[] fieldsOf(File file)
+	{
+		String name = file.getName();
+		if (!name.startsWith(RUN_PREFIX) || !name.endsWith(RUN_SUFFIX))
+			return null;
+
+		String[] parts = name.substring(RUN_PREFIX.length(), name.length() - RUN_SUFFIX.length()).split("-");
+		try
+		{
+			return parts.length == 3
+					? new long[] { Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]) }
+					: null;
+		}
+		catch (NumberFormatException e)
+		{
+			return null;
+		}
+	}
+
+	private static long sequenceOf(File file)
+	{
+		long[] fields = fieldsOf(file);
+		return fields == null ? -1 : fields[0];
+	}
+
+	private static void deleteFile(File file) throws IOException
+	{
+		if (!file.delete())
+			throw new IOException("Could not delete " + file + ".");
+	}
+
+	/** Applies every complete record in the log to the memtable. A record cut short by a crash is ignored.
+	 * @throws IOException If the log cannot be read.
+	 */
+	@SuppressWarnings("unchecked")
+	private void replayLog() throws IOException
+	{
+		if (!logFile().exists())
+			return;
+
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile()))))
+		{
+			while (true)
+			{
+				K key;
+				Slot<V> slot;
+				try
+				{
+					byte type = input.readByte();
+					key = (K) fromBytes(readBytes(input));
+					slot = new Slot<V>(type == PUT ? (V) fromBytes(readBytes(input)) : null);
+				}
+				catch (EOFException e)
+				{
+					return;
+				}
+				memtable.put(key, slot);
+			}
+		}
+	}
+
+	public Entry<K, V> get(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+
+		Slot<V> slot = lookup(key);
+		return slot == null || slot.isTombstone() ? null : new Entry<>(key, slot.value);
+	}
+
+	/** Finds the newest record for the key, checking the memtable and then the runs from newest to oldest.
+	 * @param key The key.
+	 * @return The newest record. Returns null if the key has never been written.
+	 */
+	private Slot<V> lookup(K key)
+	{
+		Entry<K, Slot<V>> entry = memtable.get(key);
+		if (entry != null)
+			return entry.getValue();
+
+		try
+		{
+			for (int i = runs.size() - 1 ; i >= 0 ; i--)
+			{
+				Slot<V> slot = runs.getAtIndex(i).get(key);
+				if (slot != null)
+					return slot;
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		return null;
+	}
+
+	/** Inserts a new entry into the map. If the key is already in the map, its value is replaced instead. To keep the
+	 * size exact, the key is looked up first, but a run is only read when its Bloom filter says it might hold the key.
+	 * Adding new keys therefore rarely touches the disk, and replacing keys that sit in older runs reads one block.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
+	public void put(K key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Cannot pass null values to map.");
+
+		Slot<V> previous = lookup(key);
+		write(PUT, key, value);
+		if (previous == null || previous.isTombstone())
+			incrementSize();
+	}
+
+	public Entry<K, V> remove(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+
+		// Nothing needs to be written if the key is not there.
+		Slot<V> previous = lookup(key);
+		if (previous == null || previous.isTombstone())
+			return null;
+
+		// The older runs may still hold the key, so a tombstone has to hide it.
+		write(REMOVE, key, null);
+		decrementSize();
+		return new Entry<>(key, previous.value);
+	}
+
+	/** Appends the change to the log, applies it to the memtable, and flushes the memtable if it is full.
+	 * @param type PUT or REMOVE.
+	 * @param key The key.
+	 * @param value The value. Null for REMOVE.
+	 */
+	private void write(byte type, K key, V value)
+	{
+		try
+		{
+			log.writeByte(type);
+			writeBytes(log, toBytes(key));
+			if (type == PUT)
+				writeBytes(log, toBytes(value));
+			log.flush();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+
+		memtable.put(key, new Slot<V>(value));
+		if (memtable.size() >= memtableLimit)
+			flush();
+	}
+
+	/**
+	 * Writes the memtable out as a new run and starts an empty log. This is done automatically when the memtable is
+	 * full, but can be called at any time.
+	 */
+	public void flush()
+	{
+		if (memtable.isEmpty())
+			return;
+
+		try
+		{
+			// A flushed run covers only itself.
+			runs.addLast(writeRun(0, nextSequence, memtable.iterator()));
+
+			// The log only has to cover what is still in memory.
+			resetLog();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+		memtable = new BPlusTreeMap<K, Slot<V>>();
+		mergeLevels();
+	}
+
+	private void resetLog() throws IOException
+	{
+		log.close();
+		log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile(), false)));
+	}
+
+	/**
+	 * Merges the newest runs into one for as long as the compaction threshold of them share a level. Levels never
+	 * increase from the oldest run to the newest, so the runs of the lowest level are always the newest ones, and the
+	 * merged run takes their place at the end.
+	 */
+	private void mergeLevels()
+	{
+		while (!runs.isEmpty())
+		{
+			int level = runs.getLast().level;
+			int start = runs.size();
+			while (start > 0 && runs.getAtIndex(start - 1).level == level)
+				start--;
+
+			if (runs.size() - start < compactionThreshold)
+				return;
+			merge(start, level + 1);
+		}
+	}
+
+	/**
+	 * Merges every run into a single one, dropping every tombstone and overwritten value. The levels keep the number
+	 * of runs low on their own, so this is only needed to reclaim space or to speed up reads after heavy updates. It
+	 * rewrites the whole map, so it is never done automatically.
+	 */
+	public void compact()
+	{
+		if (runs.size() < 2)
+			return;
+
+		// The result is placed on the level its size calls for, so that it only meets runs of a similar size later on.
+		long count = 0;
+		for (Run run : runs)
+			count += run.count;
+		int level = 0;
+		for (long capacity = memtableLimit ; capacity < count ; capacity *= compactionThreshold)
+			level++;
+		merge(0, Math.max(level, runs.getFirst().level));
+	}
+
+	/** Merges the runs from an index to the end into one run.
+	 * @param start The index of the oldest run merged.
+	 * @param level The level of the merged run.
+	 */
+	private void merge(int start, int level)
+	{
+		try
+		{
+			// Tombstones only hide older records, so they can be dropped once the oldest run takes part.
+			Run merged = writeRun(level, runs.getAtIndex(start).first,
+					new MergedRecords(null, null, false, start, start == 0));
+
+			// Once the output is renamed into place it supersedes the runs it covers, even if deleting them is interrupted.
+			for (int i = start ; i < runs.size() ; i++)
+				deleteFile(runs.getAtIndex(i).file);
+			runs.removeRange(start, runs.size());
+			runs.addLast(merged);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/** Writes a new run file under the next sequence number.
+	 * @param level The level of the run.
+	 * @param first The oldest sequence number the run covers.
+	 * @param records The records in key order.
+	 * @return The run.
+	 * @throws IOException If the file cannot be written.
+	 */
+	private Run writeRun(int level, long first, Iterator<Entry<K, Slot<V>>> records) throws IOException
+	{
+		File file = new File(directory,
+				String.format("%s%020d-%d-%020d%s", RUN_PREFIX, nextSequence++, level, first, RUN_SUFFIX));
+		return Run.write(file, level, first, records);
+	}
+
+	/** Returns the entries with keys in the range [from, to) in key order. The memtable and runs are merged lazily as
+	 * the range is walked, and only the newest version of each key is returned. Each iterator holds the run files open
+	 * until it reaches the end of the range, so a loop that may stop early should use scan instead.
+	 * @param from The smallest key included. Null means the range has no lower bound.
+	 * @param to The first key excluded. Null means the range has no upper bound.
+	 * @return The entries in the range.
+	 */
+	public Iterable<Entry<K,V>> range(K from, K to)
+	{
+		if (from != null && to != null && from.compareTo(to) > 0)
+			throw new IllegalArgumentException("The start of the range cannot be after its end.");
+
+		return () -> scan(from, to);
+	}
+
+	/** Returns an iterator over the entries with keys in the range [from, to), in key order. The run files it opens are
+	 * closed once it reaches the end of the range, or when it is closed, so it can be used in a try-with-resources
+	 * statement and abandoned at any point.
+	 * @param from The smallest key included. Null means the range has no lower bound.
+	 * @param to The first key excluded. Null means the range has no upper bound.
+	 * @return The iterator.
+	 */
+	public Scan<K,V> scan(K from, K to)
+	{
+		if (from != null && to != null && from.compareTo(to) > 0)
+			throw new IllegalArgumentException("The start of the range cannot be after its end.");
+
+		MergedRecords records = new MergedRecords(from, to, true, 0, true);
+
+		// Anonymous iterator class.
+		return new Scan<K,V>()
+		{
+			public boolean hasNext()
+			{
+				return records.hasNext();
+			}
+
+			public Entry<K,V> next()
+			{
+				Entry<K, Slot<V>> record = records.next();
+				return new Entry<>(record.getKey(), record.getValue().value);
+			}
+
+			public void close()
+			{
+				records.close();
+			}
+		};
+	}
+
+	/** Returns the number of sorted runs currently on disk.
+	 * @return The number of runs.
+	 */
+	public int runCount()
+	{
+		return runs.size();
+	}
+
+	/**
+	 * Closes the log. The map must not be used afterwards. Anything still in the memtable is recovered from the log the
+	 * next time the directory is opened.
+	 */
+	public void close()
+	{
+		try
+		{
+			log.close();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+
+		// Looping through and adding entries to string.
+		Iterator<Entry<K,V>> iterator = range(null, null).iterator();
+		while (iterator.hasNext())
+		{
+			output.append(iterator.next().toString());
+			output.append(iterator.hasNext() ? ", " : " ");
+		}
+
+		output.append("]");
+		return output.toString();
+	}
+
+	private static byte[] toBytes(Object object) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream output = new ObjectOutputStream(bytes))
+		{
+			output.writeObject(object);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Object fromBytes(byte[] bytes) throws IOException
+	{
+		try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes)))
+		{
+			return input.readObject();
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new IOException("Stored object has an unknown class.", e);
+		}
+	}
+
+	private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException
+	{
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static byte[] readBytes(DataInputStream input) throws IOException
+	{
+		byte[] bytes = new byte[input.readInt()];
+		input.readFully(bytes);
+		return bytes;
+	}
+
+	/** An iterator over a range of the map that holds run files open while it is in use.
+	 * @author Sobhan Mehrpour
+	 * @param <K> The key type.
+	 * @param <V> The value type.
+	 */
+	public interface Scan <K extends Comparable<K>, V> extends Iterator<Entry<K,V>>, AutoCloseable
+	{
+		/**
+		 * Closes every run file the iterator still has open. The iterator has no next entry afterwards.
+		 */
+		public void close();
+	}
+
+	/** A value as stored in the memtable and runs. A null value marks a removed key.
+	 * @author Sobhan Mehrpour
+	 * @param <V> The value type.
+	 */
+	private static class Slot <V>
+	{
+		private final V value;
+
+		public Slot(V value)
+		{
+			this.value = value;
+		}
+
+		public boolean isTombstone()
+		{
+			return value == null;
+		}
+	}
+
+	/** A source of records in key order.
+	 * @author Sobhan Mehrpour
+	 */
+	private interface Records <K extends Comparable<K>, V> extends Iterator<Entry<K, Slot<V>>>
+	{
+		/** Returns the next record without consuming it.
+		 * @return The next record. Returns null if there are none left.
+		 */
+		Entry<K, Slot<V>> peek();
+
+		/**
+		 * Releases any file the source still has open. The source has no records left afterwards.
+		 */
+		void close();
+	}
+
+	/** Merges the memtable and the newest runs into a single stream of records, keeping only the newest record of each
+	 * key.
+	 * @author Sobhan Mehrpour
+	 */
+	private class MergedRecords implements Records<K,V>
+	{
+		// The sources, newest first, so the first source holding a key wins.
+		private ArrayList<Records<K,V>> sources;
+
+		private K to;
+		private boolean shouldSkipTombstones;
+		private Entry<K, Slot<V>> next;
+
+		/** Merging constructor.
+		 * @param from The smallest key included. Null means no lower bound.
+		 * @param to The first key excluded. Null means no upper bound.
+		 * @param shouldIncludeMemtable Whether the memtable is one of the sources.
+		 * @param start The index of the oldest run included. Every newer run is included as well.
+		 * @param shouldSkipTombstones Whether removed keys are left out entirely.
+		 * @throws UncheckedIOException If a run cannot be read.
+		 */
+		public MergedRecords(K from, K to, boolean shouldIncludeMemtable, int start, boolean shouldSkipTombstones)
+		{
+			this.to = to;
+			this.shouldSkipTombstones = shouldSkipTombstones;
+			sources = new ArrayList<Records<K,V>>(true);
+
+			if (shouldIncludeMemtable)
+				sources.addLast(new PeekingRecords(memtable.range(from, to).iterator()));
+			try
+			{
+				for (int i = runs.size() - 1 ; i >= start ; i--)
+					sources.addLast(runs.getAtIndex(i).scan(from));
+			}
+			catch (IOException e)
+			{
+				// The runs opened so far would otherwise stay open.
+				close();
+				throw new UncheckedIOException(e);
+			}
+			advance();
+		}
+
+		public void close()
+		{
+			for (Records<K,V> source : sources)
+				source.close();
+			next = null;
+		}
+
+		private void advance()
+		{
+			while (true)
+			{
+				// Finding the smallest key among the sources. Ties go to the newest source.
+				Records<K,V> smallest = null;
+				for (Records<K,V> source : sources)
+				{
+					Entry<K, Slot<V>> candidate = source.peek();
+					if (candidate != null && (smallest == null || candidate.compareTo(smallest.peek()) < 0))
+						smallest = source;
+				}
+
+				// Nothing the sources hold past this point is wanted, so their files are closed right away.
+				if (smallest == null || (to != null && smallest.peek().getKey().compareTo(to) >= 0))
+				{
+					close();
+					return;
+				}
+
+				// Dropping the older versions of the same key.
+				Entry<K, Slot<V>> record = smallest.next();
+				for (Records<K,V> source : sources)
+				{
+					while (source.peek() != null && source.peek().compareTo(record) == 0)
+						source.next();
+				}
+
+				if (!shouldSkipTombstones || !record.getValue().isTombstone())
+				{
+					next = record;
+					return;
+				}
+			}
+		}
+
+		public Entry<K, Slot<V>> peek()
+		{
+			return next;
+		}
+
+		public boolean hasNext()
+		{
+			return next != null;
+		}
+
+		public Entry<K, Slot<V>> next()
+		{
+			if (!hasNext())
+				throw new IndexOutOfBoundsException("Iterator has no next!");
+
+			Entry<K, Slot<V>> temp = next;
+			advance();
+			return temp;
+		}
+	}
+
+	/** Adds peeking to an ordinary iterator.
+	 * @author Sobhan Mehrpour
+	 */
+	private class PeekingRecords implements Records<K,V>
+	{
+		private Iterator<Entry<K, Slot<V>>> iterator;
+		private Entry<K, Slot<V>> next;
+
+		public PeekingRecords(Iterator<Entry<K, Slot<V>>> iterator)
+		{
+			this.iterator = iterator;
+			next = iterator.hasNext() ? iterator.next() : null;
+		}
+
+		public Entry<K, Slot<V>> peek()
+		{
+			return next;
+		}
+
+		public boolean hasNext()
+		{
+			return next != null;
+		}
+
+		public Entry<K, Slot<V>> next()
+		{
+			if (!hasNext())
+				throw new IndexOutOfBoundsException("Iterator has no next!");
+
+			Entry<K, Slot<V>> temp = next;
+			next = iterator.hasNext() ? iterator.next() : null;
+			return temp;
+		}
+
+		public void close()
+		{
+			next = null;
+		}
+	}
+
+	/** An immutable sorted run on disk. Each record is a type byte, the key, and the value unless it is a tombstone.
+	 * The sparse index and Bloom filter are rebuilt in memory when the run is written or loaded.
+	 * @author Sobhan Mehrpour
+	 */
+	private static class Run
+	{
+		private final File file;
+		private final int level;
+		private final long first;
+		private int count;
+
+		// Every INDEX_INTERVAL-th key and the offset of its record.
+		private ArrayList<Comparable<?>> indexKeys;
+		private ArrayList<Long> indexOffsets;
+		private long length;
+
+		private BitSet bloom;
+		private int bloomSize;
+
+		private Run(File file, int level, long first)
+		{
+			this.file = file;
+			this.level = level;
+			this.first = first;
+			indexKeys = new ArrayList<Comparable<?>>(true);
+			indexOffsets = new ArrayList<Long>(true);
+		}
+
+		/** Writes the records to a new run file, then renames it into place so a crash never leaves half a run. The file
+		 * and the rename are forced to disk before this returns, so the log can be emptied and older runs deleted
+		 * afterwards without losing anything if the system goes down.
+		 * @param file The final file name.
+		 * @param level The level of the run.
+		 * @param first The oldest sequence number the run covers.
+		 * @param records The records in key order. Tombstones are written as well.
+		 * @return The run.
+		 * @throws IOException If the file cannot be written.
+		 */
+		public static <K extends Comparable<K>, V> Run write(File file, int level, long first,
+			Iterator<Entry<K, Slot<V>>> records) throws IOException
+		{
+			File temp = new File(file.getPath() + TEMP_SUFFIX);
+			Run run = new Run(file, level, first);
+			ArrayList<Integer> hashes = new ArrayList<Integer>(true);
+
+			FileOutputStream stream = new FileOutputStream(temp);
+			try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream)))
+			{
+				// DataOutputStream counts in an int, which stops at 2 GB, so the offset is counted here instead.
+				long offset = 0;
+				while (records.hasNext())
+				{
+					Entry<K, Slot<V>> record = records.next();
+					if (run.count % INDEX_INTERVAL == 0)
+					{
+						run.indexKeys.addLast(record.getKey());
+						run.indexOffsets.addLast(offset);
+					}
+
+					Slot<V> slot = record.getValue();
+					byte[] key = toBytes(record.getKey());
+					output.writeByte(slot.isTombstone() ? REMOVE : PUT);
+					writeBytes(output, key);
+					offset += 1 + 4 + key.length;
+					if (!slot.isTombstone())
+					{
+						byte[] value = toBytes(slot.value);
+						writeBytes(output, value);
+						offset += 4 + value.length;
+					}
+
+					hashes.addLast(record.getKey().hashCode());
+					run.count++;
+				}
+				run.length = offset;
+				output.flush();
+				stream.getFD().sync();
+			}
+
+			if (!temp.renameTo(file))
+				throw new IOException("Could not rename " + temp + " to " + file + ".");
+			syncDirectory(file.getParentFile());
+			run.buildBloom(hashes);
+			return run;
+		}
+
+		/** Forces a directory's entries to disk, so a file renamed into it stays there after a crash.
+		 * @param directory The directory.
+		 * @throws IOException If the directory cannot be synced.
+		 */
+		private static void syncDirectory(File directory) throws IOException
+		{
+			try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ))
+			{
+				channel.force(true);
+			}
+			catch (AccessDeniedException e)
+			{
+				// Windows cannot open a directory at all, and makes a rename durable on its own.
+			}
+		}
+
+		/** Reads an existing run file to rebuild its sparse index and Bloom filter.
+		 * @param file The run file.
+		 * @param level The level of the run.
+		 * @param first The oldest sequence number the run covers.
+		 * @return The run.
+		 * @throws IOException If the file cannot be read.
+		 */
+		public static Run load(File file, int level, long first) throws IOException
+		{
+			Run run = new Run(file, level, first);
+			ArrayList<Integer> hashes = new ArrayList<Integer>(true);
+
+			try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+			{
+				long offset = 0;
+				while (offset < file.length())
+				{
+					byte type = input.readByte();
+					byte[] key = readBytes(input);
+					Comparable<?> keyObject = (Comparable<?>) fromBytes(key);
+					if (run.count % INDEX_INTERVAL == 0)
+					{
+						run.indexKeys.addLast(keyObject);
+						run.indexOffsets.addLast(offset);
+					}
+					offset += 1 + 4 + key.length;
+
+					if (type == PUT)
+					{
+						int valueLength = input.readInt();
+						input.skipBytes(valueLength);
+						offset += 4 + valueLength;
+					}
+
+					hashes.addLast(keyObject.hashCode());
+					run.count++;
+				}
+			}
+
+			run.length = file.length();
+			run.buildBloom(hashes);
+			return run;
+		}
+
+		private void buildBloom(ArrayList<Integer> hashes)
+		{
+			bloomSize = Math.max(64, count * BLOOM_BITS_PER_ENTRY);
+			bloom = new BitSet(bloomSize);
+			for (int hash : hashes)
+			{
+				int h1 = mix(hash);
+				int h2 = mix(h1) | 1;
+				for (int i = 0 ; i < BLOOM_HASHES ; i++)
+					bloom.set(Math.floorMod(h1 + i * h2, bloomSize));
+			}
+		}
+
+		/** Checks the Bloom filter.
+		 * @param hash The hash code of the key.
+		 * @return False if the key is definitely not in the run. True if it might be.
+		 */
+		private boolean mightContain(int hash)
+		{
+			int h1 = mix(hash);
+			int h2 = mix(h1) | 1;
+			for (int i = 0 ; i < BLOOM_HASHES ; i++)
+			{
+				if (!bloom.get(Math.floorMod(h1 + i * h2, bloomSize)))
+					return false;
+			}
+			return true;
+		}
+
+		private static int mix(int hash)
+		{
+			int h = hash * 0x9E3779B9;
+			return h ^ (h >>> 15);
+		}
+
+		/** Returns the index of the last indexed key that is less than or equal to the key.
+		 * @param key The key.
+		 * @return The index. Returns -1 if the key comes before the whole run.
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private int floorIndex(Comparable key)
+		{
+			int low = 0;
+			int high = indexKeys.size() - 1;
+			while (low <= high)
+			{
+				int middle = (low + high) >>> 1;
+				if (key.compareTo(indexKeys.getAtIndex(middle)) < 0)
+					high = middle - 1;
+				else
+					low = middle + 1;
+			}
+			return high;
+		}
+
+		/** Looks the key up in this run, reading at most one block of the file.
+		 * @param key The key.
+		 * @return The record. Returns null if the run does not hold the key.
+		 * @throws IOException If the file cannot be read.
+		 */
+		@SuppressWarnings("unchecked")
+		public <K extends Comparable<K>, V> Slot<V> get(K key) throws IOException
+		{
+			if (count == 0 || !mightContain(key.hashCode()))
+				return null;
+
+			int block = floorIndex(key);
+			if (block < 0)
+				return null;
+
+			RunRecords<K,V> records = new RunRecords<K,V>(this, block, indexEnd(block));
+			try
+			{
+				while (records.hasNext())
+				{
+					int comparison = key.compareTo(records.peek().getKey());
+					if (comparison == 0)
+						return records.next().getValue();
+					if (comparison < 0)
+						return null;
+					records.next();
+				}
+				return null;
+			}
+			finally
+			{
+				records.close();
+			}
+		}
+
+		private long indexEnd(int block)
+		{
+			return block + 1 < indexOffsets.size() ? indexOffsets.getAtIndex(block + 1) : length;
+		}
+
+		/** Returns every record from the key onwards.
+		 * @param from The smallest key included. Null means the whole run.
+		 * @return The records.
+		 * @throws IOException If the file cannot be read.
+		 */
+		public <K extends Comparable<K>, V> Records<K,V> scan(K from) throws IOException
+		{
+			int block = from == null ? 0 : Math.max(floorIndex(from), 0);
+			RunRecords<K,V> records = new RunRecords<K,V>(this, count == 0 ? -1 : block, length);
+			try
+			{
+				while (from != null && records.hasNext() && records.peek().getKey().compareTo(from) < 0)
+					records.next();
+			}
+			catch (UncheckedIOException e)
+			{
+				records.close();
+				throw e.getCause();
+			}
+			return records;
+		}
+	}
+
+	/** Reads the records of a run sequentially, from the start of an index block up to an offset. The file is closed
+	 * once the last record has been read, or when the reader is closed.
+	 * @author Sobhan Mehrpour
+	 */
+	private static class RunRecords <K extends Comparable<K>, V> implements Records<K,V>
+	{
+		private DataInputStream input;
+		private long offset;
+		private long end;
+		private Entry<K, Slot<V>> next;
+
+		public RunRecords(Run run, int block, long end) throws IOException
+		{
+			this.end = end;
+			if (block < 0)
+				return;
+
+			// Seeking straight to the start of the block.
+			offset = run.indexOffsets.getAtIndex(block);
+			FileInputStream file = new FileInputStream(run.file);
+			input = new DataInputStream(new BufferedInputStream(file));
+			try
+			{
+				file.getChannel().position(offset);
+				advance();
+			}
+			catch (IOException e)
+			{
+				close();
+				throw e;
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void advance() throws IOException
+		{
+			if (input == null || offset >= end)
+			{
+				next = null;
+				close();
+				return;
+			}
+
+			byte type = input.readByte();
+			byte[] key = readBytes(input);
+			offset += 1 + 4 + key.length;
+			V value = null;
+			if (type == PUT)
+			{
+				byte[] bytes = readBytes(input);
+				offset += 4 + bytes.length;
+				value = (V) fromBytes(bytes);
+			}
+			next = new Entry<K, Slot<V>>((K) fromBytes(key), new Slot<V>(value));
+		}
+
+		public void close()
+		{
+			next = null;
+			if (input == null)
+				return;
+
+			try
+			{
+				input.close();
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			finally
+			{
+				input = null;
+			}
+		}
+
+		public Entry<K, Slot<V>> peek()
+		{
+			return next;
+		}
+
+		public boolean hasNext()
+		{
+			return next != null;
+		}
+
+		public Entry<K, Slot<V>> next()
+		{
+			if (!hasNext())
+				throw new IndexOutOfBoundsException("Iterator has no next!");
+
+			Entry<K, Slot<V>> temp = next;
+			try
+			{
+				advance();
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			return temp;
+		}
+	}
+}
@@ -1,4 +1,7 @@
 package maps;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
 import priorityqueues.Entry;
 
 /** Abstract map class to be implemented has an unsorted map, search table, or hash table.
@@ -71,6 +74,114 @@ abstract public class Map <K extends Comparable<K>, V>
 	 */
 	abstract public Entry<K,V> remove(K key);
 	
+	/** Returns the value mapped to the key, or the given default if there is none.
+	 * @param key The key.
+	 * @param defaultValue The value returned if the key is not in the map.
+	 * @return The value mapped to the key, or the default.
+	 */
+	public V getOrDefault(K key, V defaultValue)
+	{
+		Entry<K,V> entry = get(key);
+		return entry == null ? defaultValue : entry.getValue();
+	}
+	
+	/** Returns whether the key is in the map.
+	 * @param key The key.
+	 * @return True if the key is in the map. False otherwise.
+	 */
+	public boolean containsKey(K key)
+	{
+		return get(key) != null;
+	}
+	
+	/** Inserts the key and value only if the key is not in the map yet. <br>
+	 * The default implementation looks the key up again to insert it. Maps that can insert where the lookup ended
+	 * override it.
+	 * @param key The key.
+	 * @param value The value.
+	 * @return The value already mapped to the key. Returns null if the key was absent and has been inserted.
+	 */
+	public V putIfAbsent(K key, V value)
+	{
+		if (value == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+		
+		Entry<K,V> entry = get(key);
+		if (entry != null)
+			return entry.getValue();
+		
+		put(key, value);
+		return null;
+	}
+	
+	/** Computes a new value for the key from its current value, which is null if the key is absent. If the function
+	 * returns null, the key is removed instead. This is the operation the other compute methods and merge are built
+	 * on. <br>
+	 * The default implementation calls get, then put or remove, so it looks the key up twice. Maps that can change
+	 * an entry where the lookup found it override it.
+	 * @param key The key.
+	 * @param remappingFunction Computes the new value from the key and the current value.
+	 * @return The new value. Returns null if the key is absent afterwards.
+	 */
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction)
+	{
+		if (remappingFunction == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+		
+		Entry<K,V> entry = get(key);
+		V oldValue = entry == null ? null : entry.getValue();
+		V value = remappingFunction.apply(key, oldValue);
+		
+		if (value == null)
+		{
+			if (entry != null)
+				remove(key);
+		}
+		else if (value != oldValue)
+			put(key, value);
+		return value;
+	}
+	
+	/** Maps the key to the function's result only if the key is not in the map yet. Nothing is inserted if the
+	 * function returns null.
+	 * @param key The key.
+	 * @param mappingFunction Computes the value from the key.
+	 * @return The current value, which is the existing one if the key was present.
+	 */
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction)
+	{
+		if (mappingFunction == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+		
+		return compute(key, (k, oldValue) -> oldValue != null ? oldValue : mappingFunction.apply(k));
+	}
 	
+	/** Computes a new value for the key only if it is in the map. If the function returns null, the key is removed.
+	 * @param key The key.
+	 * @param remappingFunction Computes the new value from the key and the current value.
+	 * @return The new value. Returns null if the key is absent afterwards.
+	 */
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction)
+	{
+		if (remappingFunction == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+		
+		return compute(key, (k, oldValue) -> oldValue == null ? null : remappingFunction.apply(k, oldValue));
+	}
+	
+	/** Inserts the value if the key is absent. Otherwise combines the current value with the given one, which is the
+	 * usual way to keep counters or other aggregates. If the function returns null, the key is removed.
+	 * @param key The key.
+	 * @param value The value to insert or combine.
+	 * @param remappingFunction Combines the current value and the given one.
+	 * @return The new value. Returns null if the key is absent afterwards.
+	 */
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction)
+	{
+		if (value == null || remappingFunction == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+		
+		return compute(key, (k, oldValue) -> oldValue == null ? value : remappingFunction.apply(oldValue, value));
+	}
 
 }
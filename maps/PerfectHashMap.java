@@ -0,0 +1,358 @@
+package maps;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import priorityqueues.Entry;
+
+/** An immutable map frozen from a populated HashMap or SortedMap, for data that is loaded once and then only read.
+ * Keys are looked up through a minimal perfect hash function built the BBHash way, which sends each of the n keys
+ * to its own index between 0 and n - 1. Lookups therefore need no collision handling at all, and the keys and values
+ * sit in two plain arrays with no empty slots. <br>
+ * The function is a series of bit arrays, one per level. At every level, each remaining key is hashed to a bit, and
+ * a key that has its bit to itself sets it and stops there. The keys that collided move on to the next level, where
+ * the array is smaller. A key's index is the number of set bits before its own. This costs about four bits per key
+ * on top of the keys and values, and most lookups stop at the first or second level. The few keys that still collide
+ * after the last level are kept in a small HashMap instead. <br>
+ * The map cannot be changed: put and remove throw an exception, and get returns a copy of the entry.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class PerfectHashMap <K extends Comparable<K>, V> extends Map<K,V> implements Iterable<Entry<K,V>>
+{
+	/**
+	 * The number of bits given to each key at every level. Larger values take more memory but fewer levels.
+	 */
+	private static final double GAMMA = 2.0;
+
+	/**
+	 * The number of levels before the remaining keys are put in the fallback map.
+	 */
+	private static final int MAXIMUM_LEVELS = 32;
+
+	/**
+	 * The number of words covered by each precomputed rank.
+	 */
+	private static final int WORDS_PER_RANK = 8;
+
+	// The bit arrays of every level, one after another, and where each level starts and how many bits it has.
+	private long[] bits;
+	private long[] levelOffsets;
+	private long[] levelSizes;
+
+	// The number of set bits before each block of WORDS_PER_RANK words.
+	private int[] ranks;
+
+	// The keys that collided on every level, with their indices.
+	private HashMap<K, Integer> fallback;
+
+	// The keys and values, at the index given by the hash function.
+	private K[] keys;
+	private V[] values;
+
+	/** Freezes the contents of a hash map. Later changes to the hash map do not affect this one.
+	 * @param map The map to copy.
+	 */
+	public PerfectHashMap(HashMap<K,V> map)
+	{
+		if (map == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		build(map, map.size());
+	}
+
+	/** Freezes the contents of a sorted map. Later changes to the sorted map do not affect this one.
+	 * @param map The map to copy.
+	 */
+	public PerfectHashMap(SortedMap<K,V> map)
+	{
+		if (map == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		build(map, map.size());
+	}
+
+	/** Mixes a hash code with the seed of a level, so every level spreads the keys differently.
+	 * @param hashCode The hash code of the key.
+	 * @param level The level.
+	 * @return The mixed hash.
+	 */
+	private static int hash(int hashCode, int level)
+	{
+		int h = hashCode ^ (level * 0x9E3779B9);
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		return h ^ (h >>> 16);
+	}
+
+	/** Maps a hash to a bit of a level without a division.
+	 * @param hash The hash.
+	 * @param size The number of bits of the level.
+	 * @return The bit within the level.
+	 */
+	private static long position(int hash, long size)
+	{
+		return ((hash & 0xFFFFFFFFL) * size) >>> 32;
+	}
+
+	private boolean isSet(long bit)
+	{
+		return (bits[(int) (bit >>> 6)] & (1L << bit)) != 0;
+	}
+
+	/** Returns the number of set bits before the given one.
+	 * @param bit The global bit position.
+	 * @return The rank.
+	 */
+	private int rank(long bit)
+	{
+		int word = (int) (bit >>> 6);
+		int block = word / WORDS_PER_RANK;
+		int rank = ranks[block];
+		for (int i = block * WORDS_PER_RANK ; i < word ; i++)
+			rank += Long.bitCount(bits[i]);
+		return rank + Long.bitCount(bits[word] & ((1L << bit) - 1));
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private K[] newKeyArray(int length)
+	{
+		return (K[]) new Comparable[length];
+	}
+
+	@SuppressWarnings("unchecked")
+	private void build(Iterable<Entry<K,V>> map, int size)
+	{
+		// Copying the keys and values, along with each key's hash code so it is only computed once.
+		K[] sourceKeys = newKeyArray(size);
+		V[] sourceValues = (V[]) new Object[size];
+		int[] hashCodes = new int[size];
+		int count = 0;
+		for (Entry<K,V> entry : map)
+		{
+			sourceKeys[count] = entry.getKey();
+			sourceValues[count] = entry.getValue();
+			hashCodes[count] = entry.getKey().hashCode();
+			count++;
+		}
+
+		// The global bit of every key that got one, and the keys still without a bit.
+		long[] keyBits = new long[size];
+		int[] remaining = new int[size];
+		for (int i = 0 ; i < size ; i++)
+			remaining[i] = i;
+		int remainingCount = size;
+
+		levelOffsets = new long[MAXIMUM_LEVELS];
+		levelSizes = new long[MAXIMUM_LEVELS];
+		long[][] levelBits = new long[MAXIMUM_LEVELS][];
+		long offset = 0;
+		int levelCount = 0;
+
+		while (remainingCount > 0 && levelCount < MAXIMUM_LEVELS)
+		{
+			// Rounding each level up to whole words keeps every level word aligned in the combined array.
+			long levelSize = Math.max(64, ((long) Math.ceil(remainingCount * GAMMA) + 63) & ~63L);
+			long[] seen = new long[(int) (levelSize >>> 6)];
+			long[] collided = new long[seen.length];
+
+			for (int i = 0 ; i < remainingCount ; i++)
+			{
+				long bit = position(hash(hashCodes[remaining[i]], levelCount), levelSize);
+				int word = (int) (bit >>> 6);
+				if ((seen[word] & (1L << bit)) != 0)
+					collided[word] |= 1L << bit;
+				seen[word] |= 1L << bit;
+			}
+
+			// Keys that had their bit to themselves keep it. The rest move on to the next level.
+			int nextCount = 0;
+			for (int i = 0 ; i < remainingCount ; i++)
+			{
+				int key = remaining[i];
+				long bit = position(hash(hashCodes[key], levelCount), levelSize);
+				if ((collided[(int) (bit >>> 6)] & (1L << bit)) == 0)
+					keyBits[key] = offset + bit;
+				else
+					remaining[nextCount++] = key;
+			}
+			for (int i = 0 ; i < seen.length ; i++)
+				seen[i] &= ~collided[i];
+
+			levelBits[levelCount] = seen;
+			levelOffsets[levelCount] = offset;
+			levelSizes[levelCount] = levelSize;
+			offset += levelSize;
+			levelCount++;
+			remainingCount = nextCount;
+		}
+
+		// Joining the levels into one array and counting the set bits ahead of every block.
+		bits = new long[(int) (offset >>> 6) + 1];
+		for (int level = 0 ; level < levelCount ; level++)
+			System.arraycopy(levelBits[level], 0, bits, (int) (levelOffsets[level] >>> 6), levelBits[level].length);
+		levelOffsets = Arrays.copyOf(levelOffsets, levelCount);
+		levelSizes = Arrays.copyOf(levelSizes, levelCount);
+
+		ranks = new int[bits.length / WORDS_PER_RANK + 1];
+		int rank = 0;
+		for (int i = 0 ; i < bits.length ; i++)
+		{
+			if (i % WORDS_PER_RANK == 0)
+				ranks[i / WORDS_PER_RANK] = rank;
+			rank += Long.bitCount(bits[i]);
+		}
+
+		// Placing every key and value at its index. Keys left over go after the ones that got a bit.
+		keys = newKeyArray(size);
+		values = (V[]) new Object[size];
+		fallback = new HashMap<>();
+		boolean[] isLeftOver = new boolean[size];
+		for (int i = 0 ; i < remainingCount ; i++)
+			isLeftOver[remaining[i]] = true;
+
+		int nextFallbackIndex = rank;
+		for (int i = 0 ; i < size ; i++)
+		{
+			int index;
+			if (isLeftOver[i])
+			{
+				index = nextFallbackIndex++;
+				fallback.put(sourceKeys[i], index);
+			}
+			else
+				index = rank(keyBits[i]);
+
+			keys[index] = sourceKeys[i];
+			values[index] = sourceValues[i];
+			incrementSize();
+		}
+	}
+
+	/** Returns the index of the key.
+	 * @param key The key.
+	 * @return The index. Returns -1 if the key is not in the map.
+	 */
+	private int indexOf(K key)
+	{
+		int hashCode = key.hashCode();
+		for (int level = 0 ; level < levelSizes.length ; level++)
+		{
+			long bit = levelOffsets[level] + position(hash(hashCode, level), levelSizes[level]);
+			if (isSet(bit))
+			{
+				// A key in the map always stops at the first level whose bit is set, so any other key is a miss.
+				int index = rank(bit);
+				return keys[index].equals(key) ? index : -1;
+			}
+		}
+
+		Entry<K, Integer> entry = fallback.get(key);
+		return entry == null ? -1 : entry.getValue();
+	}
+
+	/** Returns a copy of the entry with the given key. Changing it does not change the map.
+	 * @param key The key.
+	 * @return The entry. Returns null if the key is not in the map.
+	 */
+	public Entry<K, V> get(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int index = indexOf(key);
+		return index == -1 ? null : new Entry<>(keys[index], values[index]);
+	}
+
+	/** Returns the value mapped to the key without creating an entry.
+	 * @param key The key.
+	 * @return The value. Returns null if the key is not in the map.
+	 */
+	public V getValue(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int index = indexOf(key);
+		return index == -1 ? null : values[index];
+	}
+
+	/** Not supported, since the map is immutable.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
+	public void put(K key, V value) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("A perfect hash map cannot be changed once it is built.");
+	}
+
+	/** Not supported, since the map is immutable.
+	 * @param key The key.
+	 * @return Nothing.
+	 */
+	public Entry<K, V> remove(K key) throws UnsupportedOperationException
+	{
+		throw new UnsupportedOperationException("A perfect hash map cannot be changed once it is built.");
+	}
+
+	/** Returns the memory taken by the hash function, not counting the keys and values.
+	 * @return The number of bits per key.
+	 */
+	public double bitsPerKey()
+	{
+		if (isEmpty())
+			return 0;
+
+		long total = (long) bits.length * Long.SIZE + (long) ranks.length * Integer.SIZE;
+		return (double) total / size();
+	}
+
+	/** Returns the number of levels of the hash function.
+	 * @return The number of levels.
+	 */
+	public int levelCount()
+	{
+		return levelSizes.length;
+	}
+
+	/** Returns an iterator over every entry, in the order of their indices. The entries are copies.
+	 * @return The iterator.
+	 */
+	public Iterator<Entry<K,V>> iterator()
+	{
+		// Anonymous iterator class.
+		Iterator<Entry<K,V>> temp = new Iterator<Entry<K,V>>()
+		{
+			private int index = 0;
+
+			public boolean hasNext()
+			{
+				return index < keys.length;
+			}
+
+			public Entry<K,V> next()
+			{
+				if (!hasNext())
+					throw new IndexOutOfBoundsException("Iterator has no next!");
+
+				Entry<K,V> entry = new Entry<>(keys[index], values[index]);
+				index++;
+				return entry;
+			}
+		};
+
+		return temp;
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+		for (int i = 0 ; i < keys.length ; i++)
+			output.append(String.format("(%s, %s) ", keys[i], values[i]));
+		output.append("]");
+		return output.toString();
+	}
+}
@@ -0,0 +1,811 @@
+package maps;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import priorityqueues.Entry;
+
+/** An immutable hash map built as a hash array mapped trie. Every node splits on the next five bits of the hash and
+ * keeps a bitmap of the children it actually has, so it only stores those. Since nothing is ever changed in place,
+ * put and remove return a new version of the map that copies just the O(log32 n) nodes on the path to the key and
+ * shares every other node with the old version. Old versions stay valid, so a version can be handed to any number of
+ * reader threads without locking. <br>
+ * Bulk edits go through a Builder, which changes the nodes it created itself in place instead of copying them again.
+ * Two versions can be compared with diff, which skips every subtree they share, so comparing a version with a small
+ * edit of it takes time proportional to the edit rather than to the map.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class PersistentHashMap <K extends Comparable<K>, V> implements Iterable<Entry<K,V>>
+{
+	/**
+	 * The number of hash bits used by each level of the trie.
+	 */
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+
+	/**
+	 * The deepest a trie can get. A 32 bit hash needs seven levels, plus one for keys whose hashes collide entirely.
+	 */
+	private static final int MAXIMUM_DEPTH = 16;
+
+	private static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+
+	// The root is null while the map is empty.
+	private final Node root;
+	private final int size;
+
+	/**
+	 * Creates an empty map.
+	 */
+	public PersistentHashMap()
+	{
+		this(null, 0);
+	}
+
+	private PersistentHashMap(Node root, int size)
+	{
+		this.root = root;
+		this.size = size;
+	}
+
+	private static int hash(Object key)
+	{
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/** Returns a copy of the entry with the given key. Changing it does not change the map.
+	 * @param key The key.
+	 * @return The entry. Returns null if the key is not in the map.
+	 */
+	public Entry<K,V> get(K key)
+	{
+		V value = getValue(key);
+		return value == null ? null : new Entry<>(key, value);
+	}
+
+	/** Returns the value mapped to the key without creating an entry.
+	 * @param key The key.
+	 * @return The value. Returns null if the key is not in the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public V getValue(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		return root == null ? null : (V) root.find(0, hash(key), key);
+	}
+
+	/** Returns whether the key is in the map.
+	 * @param key The key.
+	 * @return True if the key is in the map. False otherwise.
+	 */
+	public boolean containsKey(K key)
+	{
+		return getValue(key) != null;
+	}
+
+	/** Returns a new version of the map with the key mapped to the value. This map is left unchanged.
+	 * @param key The key.
+	 * @param value The value.
+	 * @return The new version. Returns this map itself if the key is already mapped to that same value.
+	 */
+	public PersistentHashMap<K,V> put(K key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		boolean[] isAdded = new boolean[1];
+		Node newRoot = (root == null ? EMPTY : root).put(null, 0, hash(key), key, value, isAdded);
+		if (newRoot == root)
+			return this;
+		return new PersistentHashMap<>(newRoot, isAdded[0] ? size + 1 : size);
+	}
+
+	/** Returns a new version of the map without the key. This map is left unchanged.
+	 * @param key The key.
+	 * @return The new version. Returns this map itself if the key is not in it.
+	 */
+	public PersistentHashMap<K,V> remove(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+		if (root == null)
+			return this;
+
+		boolean[] isRemoved = new boolean[1];
+		Node newRoot = root.remove(null, 0, hash(key), key, isRemoved);
+		if (!isRemoved[0])
+			return this;
+		return new PersistentHashMap<>(newRoot, size - 1);
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/** Returns a builder that starts out with the contents of this map. Changing the builder does not change this map.
+	 * @return The builder.
+	 */
+	public Builder<K,V> toBuilder()
+	{
+		return new Builder<>(root, size);
+	}
+
+	/** Reports every difference between this map and a newer version of it. Subtrees that both versions share are
+	 * skipped without being visited, so versions derived from each other are compared in time proportional to the
+	 * edits between them.
+	 * @param newer The map to compare against.
+	 * @param listener Told about every key that was added, removed, or given a value that is not equal to the old one.
+	 */
+	public void diff(PersistentHashMap<K,V> newer, DiffListener<K,V> listener)
+	{
+		if (newer == null || listener == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		diff(root, newer.root, 0, listener);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K extends Comparable<K>, V> void diff(Node older, Node newer, int shift, DiffListener<K,V> listener)
+	{
+		if (older == newer)
+			return;
+		if (older == null || newer == null)
+		{
+			reportAll(older == null ? newer : older, older == null, listener);
+			return;
+		}
+		if (!(older instanceof BitmapNode && newer instanceof BitmapNode))
+		{
+			diffByLookup(older, newer, shift, listener);
+			return;
+		}
+
+		BitmapNode oldNode = (BitmapNode) older;
+		BitmapNode newNode = (BitmapNode) newer;
+		int bits = oldNode.bitmap | newNode.bitmap;
+		while (bits != 0)
+		{
+			int bit = bits & -bits;
+			bits ^= bit;
+
+			Object oldKey = null;
+			Object oldValue = null;
+			Object newKey = null;
+			Object newValue = null;
+			if ((oldNode.bitmap & bit) != 0)
+			{
+				int i = 2 * oldNode.index(bit);
+				oldKey = oldNode.array[i];
+				oldValue = oldNode.array[i + 1];
+			}
+			if ((newNode.bitmap & bit) != 0)
+			{
+				int i = 2 * newNode.index(bit);
+				newKey = newNode.array[i];
+				newValue = newNode.array[i + 1];
+			}
+
+			// A slot holds either a key and its value, or no key and a child node.
+			if (oldValue == null)
+				reportSlot(newKey, newValue, true, listener);
+			else if (newValue == null)
+				reportSlot(oldKey, oldValue, false, listener);
+			else if (oldKey == null && newKey == null)
+				diff((Node) oldValue, (Node) newValue, shift + BITS, listener);
+			else if (oldKey != null && newKey != null && oldKey.equals(newKey))
+				reportChange((K) oldKey, (V) oldValue, (V) newValue, listener);
+			else
+				diffByLookup(slotAsNode(oldKey, oldValue), slotAsNode(newKey, newValue), shift + BITS, listener);
+		}
+	}
+
+	/** Compares two subtrees by looking every key of each up in the other. Only used where the trees have different
+	 * shapes, which is limited to a single slot or a group of colliding keys.
+	 * @param shift The position of the hash bits both subtrees split on.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <K extends Comparable<K>, V> void diffByLookup(Node older, Node newer, int shift,
+			DiffListener<K,V> listener)
+	{
+		for (Iterator<Object[]> iterator = new PairIterator(older) ; iterator.hasNext() ; )
+		{
+			Object[] pair = iterator.next();
+			Object newValue = newer.find(shift, hash(pair[0]), pair[0]);
+			if (newValue == null)
+				listener.onRemoved((K) pair[0], (V) pair[1]);
+			else
+				reportChange((K) pair[0], (V) pair[1], (V) newValue, listener);
+		}
+		for (Iterator<Object[]> iterator = new PairIterator(newer) ; iterator.hasNext() ; )
+		{
+			Object[] pair = iterator.next();
+			if (older.find(shift, hash(pair[0]), pair[0]) == null)
+				listener.onAdded((K) pair[0], (V) pair[1]);
+		}
+	}
+
+	private static <K extends Comparable<K>, V> void reportChange(K key, V oldValue, V newValue,
+			DiffListener<K,V> listener)
+	{
+		if (oldValue != newValue && !oldValue.equals(newValue))
+			listener.onChanged(key, oldValue, newValue);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K extends Comparable<K>, V> void reportSlot(Object key, Object value, boolean isAdded,
+			DiffListener<K,V> listener)
+	{
+		if (key == null)
+			reportAll((Node) value, isAdded, listener);
+		else if (isAdded)
+			listener.onAdded((K) key, (V) value);
+		else
+			listener.onRemoved((K) key, (V) value);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K extends Comparable<K>, V> void reportAll(Node node, boolean isAdded, DiffListener<K,V> listener)
+	{
+		for (Iterator<Object[]> iterator = new PairIterator(node) ; iterator.hasNext() ; )
+		{
+			Object[] pair = iterator.next();
+			if (isAdded)
+				listener.onAdded((K) pair[0], (V) pair[1]);
+			else
+				listener.onRemoved((K) pair[0], (V) pair[1]);
+		}
+	}
+
+	/** Wraps the contents of a slot as a node, so a single key can be compared with a subtree.
+	 * @param key The key of the slot, or null if it holds a child.
+	 * @param value The value or child of the slot.
+	 * @return The node.
+	 */
+	private static Node slotAsNode(Object key, Object value)
+	{
+		if (key == null)
+			return (Node) value;
+		return new CollisionNode(null, hash(key), new Object[] { key, value });
+	}
+
+	/** Returns an iterator over every entry, in no particular order. The entries are copies.
+	 * @return The iterator.
+	 */
+	public Iterator<Entry<K,V>> iterator()
+	{
+		// Anonymous iterator class.
+		Iterator<Entry<K,V>> temp = new Iterator<Entry<K,V>>()
+		{
+			private PairIterator pairs = new PairIterator(root);
+
+			public boolean hasNext()
+			{
+				return pairs.hasNext();
+			}
+
+			@SuppressWarnings("unchecked")
+			public Entry<K,V> next()
+			{
+				if (!hasNext())
+					throw new IndexOutOfBoundsException("Iterator has no next!");
+
+				Object[] pair = pairs.next();
+				return new Entry<>((K) pair[0], (V) pair[1]);
+			}
+		};
+
+		return temp;
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+		for (Entry<K,V> entry : this)
+			output.append(entry.toString() + " ");
+		output.append("]");
+		return output.toString();
+	}
+
+	/** Receives the differences found by diff.
+	 * @author Sobhan Mehrpour
+	 * @param <K> The key type.
+	 * @param <V> The value type.
+	 */
+	public interface DiffListener <K, V>
+	{
+		/** Called for a key that is only in the newer map.
+		 * @param key The key.
+		 * @param value Its value in the newer map.
+		 */
+		void onAdded(K key, V value);
+
+		/** Called for a key that is only in the older map.
+		 * @param key The key.
+		 * @param value Its value in the older map.
+		 */
+		void onRemoved(K key, V value);
+
+		/** Called for a key whose value in the newer map is not equal to its value in the older one.
+		 * @param key The key.
+		 * @param oldValue Its value in the older map.
+		 * @param newValue Its value in the newer map.
+		 */
+		void onChanged(K key, V oldValue, V newValue);
+	}
+
+	/** Builds a map through a series of edits without creating a new version for each. Nodes the builder created
+	 * itself are changed in place, while nodes it shares with earlier versions are copied the first time they are
+	 * changed, so no published version is ever affected. A builder is meant to be used by one thread at a time.
+	 * @author Sobhan Mehrpour
+	 * @param <K> The key type.
+	 * @param <V> The value type.
+	 */
+	public static class Builder <K extends Comparable<K>, V>
+	{
+		// Marks the nodes this builder may change in place. Replaced whenever a map is built.
+		private Object edit;
+		private Node root;
+		private int size;
+
+		/**
+		 * Creates a builder for an empty map.
+		 */
+		public Builder()
+		{
+			this(null, 0);
+		}
+
+		private Builder(Node root, int size)
+		{
+			edit = new Object();
+			this.root = root;
+			this.size = size;
+		}
+
+		/** Maps the key to the value, replacing any previous value.
+		 * @param key The key.
+		 * @param value The value.
+		 * @return The builder, so calls can be chained.
+		 */
+		public Builder<K,V> put(K key, V value)
+		{
+			if (key == null || value == null)
+				throw new IllegalArgumentException("Null values cannot be passed.");
+
+			boolean[] isAdded = new boolean[1];
+			root = (root == null ? EMPTY : root).put(edit, 0, hash(key), key, value, isAdded);
+			if (isAdded[0])
+				size++;
+			return this;
+		}
+
+		/** Removes the key if it is there.
+		 * @param key The key.
+		 * @return The builder, so calls can be chained.
+		 */
+		public Builder<K,V> remove(K key)
+		{
+			if (key == null)
+				throw new IllegalArgumentException("Null values cannot be passed.");
+			if (root == null)
+				return this;
+
+			boolean[] isRemoved = new boolean[1];
+			root = root.remove(edit, 0, hash(key), key, isRemoved);
+			if (isRemoved[0])
+				size--;
+			return this;
+		}
+
+		/** Returns the value currently mapped to the key.
+		 * @param key The key.
+		 * @return The value. Returns null if the key is not in the builder.
+		 */
+		@SuppressWarnings("unchecked")
+		public V getValue(K key)
+		{
+			if (key == null)
+				throw new IllegalArgumentException("Null values cannot be passed.");
+
+			return root == null ? null : (V) root.find(0, hash(key), key);
+		}
+
+		public int size()
+		{
+			return size;
+		}
+
+		/** Returns a map with the current contents. The builder can still be used afterwards, and later edits do not
+		 * affect the returned map.
+		 * @return The map.
+		 */
+		public PersistentHashMap<K,V> build()
+		{
+			// Giving up ownership of every node so far, since they now belong to a published map.
+			edit = new Object();
+			return new PersistentHashMap<>(root, size);
+		}
+	}
+
+	/** A node of the trie. Its array holds pairs: a key and its value, or null and a child node.
+	 * @author Sobhan Mehrpour
+	 */
+	private abstract static class Node
+	{
+		// The builder allowed to change this node in place, or null if no builder is.
+		protected Object edit;
+		protected Object[] array;
+
+		protected Node(Object edit, Object[] array)
+		{
+			this.edit = edit;
+			this.array = array;
+		}
+
+		protected boolean isEditable(Object edit)
+		{
+			return edit != null && this.edit == edit;
+		}
+
+		/** Returns the value mapped to the key in this subtree.
+		 * @param shift The position of the hash bits this node splits on.
+		 * @param hash The hash of the key.
+		 * @param key The key.
+		 * @return The value. Returns null if the key is not in the subtree.
+		 */
+		abstract Object find(int shift, int hash, Object key);
+
+		/** Returns the subtree with the key mapped to the value.
+		 * @param edit The builder making the change, or null for a persistent change.
+		 * @param shift The position of the hash bits this node splits on.
+		 * @param hash The hash of the key.
+		 * @param key The key.
+		 * @param value The value.
+		 * @param isAdded Set to true if the key was not in the subtree before.
+		 * @return The changed subtree. Returns this node itself if nothing changed.
+		 */
+		abstract Node put(Object edit, int shift, int hash, Object key, Object value, boolean[] isAdded);
+
+		/** Returns the subtree without the key.
+		 * @param edit The builder making the change, or null for a persistent change.
+		 * @param shift The position of the hash bits this node splits on.
+		 * @param hash The hash of the key.
+		 * @param key The key.
+		 * @param isRemoved Set to true if the key was in the subtree.
+		 * @return The changed subtree, or null if it is now empty. Returns this node itself if nothing changed.
+		 */
+		abstract Node remove(Object edit, int shift, int hash, Object key, boolean[] isRemoved);
+	}
+
+	/** A node that splits on five bits of the hash and only stores the slots that are in use.
+	 * @author Sobhan Mehrpour
+	 */
+	private static class BitmapNode extends Node
+	{
+		private int bitmap;
+
+		public BitmapNode(Object edit, int bitmap, Object[] array)
+		{
+			super(edit, array);
+			this.bitmap = bitmap;
+		}
+
+		/** Returns the position of a slot among the slots in use.
+		 * @param bit The bit of the slot.
+		 * @return The number of slots in use before it.
+		 */
+		private int index(int bit)
+		{
+			return Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		private BitmapNode editable(Object edit)
+		{
+			return isEditable(edit) ? this : new BitmapNode(edit, bitmap, array.clone());
+		}
+
+		Object find(int shift, int hash, Object key)
+		{
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((bitmap & bit) == 0)
+				return null;
+
+			int i = 2 * index(bit);
+			if (array[i] == null)
+				return ((Node) array[i + 1]).find(shift + BITS, hash, key);
+			return key.equals(array[i]) ? array[i + 1] : null;
+		}
+
+		Node put(Object edit, int shift, int hash, Object key, Object value, boolean[] isAdded)
+		{
+			int bit = 1 << ((hash >>> shift) & MASK);
+			int i = 2 * index(bit);
+
+			if ((bitmap & bit) != 0)
+			{
+				Object slotKey = array[i];
+				Object slotValue = array[i + 1];
+				BitmapNode node;
+
+				if (slotKey == null)
+				{
+					Node child = ((Node) slotValue).put(edit, shift + BITS, hash, key, value, isAdded);
+					if (child == slotValue)
+						return this;
+					node = editable(edit);
+					node.array[i + 1] = child;
+				}
+				else if (key.equals(slotKey))
+				{
+					if (value == slotValue)
+						return this;
+					node = editable(edit);
+					node.array[i + 1] = value;
+				}
+				else
+				{
+					// Two keys share the slot, so it is pushed down into a new child.
+					isAdded[0] = true;
+					Node child = createPair(edit, shift + BITS, slotKey, slotValue, hash, key, value);
+					node = editable(edit);
+					node.array[i] = null;
+					node.array[i + 1] = child;
+				}
+				return node;
+			}
+
+			isAdded[0] = true;
+			Object[] newArray = new Object[array.length + 2];
+			System.arraycopy(array, 0, newArray, 0, i);
+			newArray[i] = key;
+			newArray[i + 1] = value;
+			System.arraycopy(array, i, newArray, i + 2, array.length - i);
+
+			if (isEditable(edit))
+			{
+				array = newArray;
+				bitmap |= bit;
+				return this;
+			}
+			return new BitmapNode(edit, bitmap | bit, newArray);
+		}
+
+		Node remove(Object edit, int shift, int hash, Object key, boolean[] isRemoved)
+		{
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((bitmap & bit) == 0)
+				return this;
+
+			int i = 2 * index(bit);
+			Object slotKey = array[i];
+			Object slotValue = array[i + 1];
+
+			if (slotKey == null)
+			{
+				Node child = ((Node) slotValue).remove(edit, shift + BITS, hash, key, isRemoved);
+				if (child == slotValue)
+					return this;
+				if (child == null)
+					return without(edit, bit, i);
+
+				// A child down to a single key is pulled back up, so equal maps keep the same shape.
+				BitmapNode node = editable(edit);
+				if (child.array.length == 2 && child.array[0] != null)
+				{
+					node.array[i] = child.array[0];
+					node.array[i + 1] = child.array[1];
+				}
+				else
+					node.array[i + 1] = child;
+				return node;
+			}
+
+			if (!key.equals(slotKey))
+				return this;
+
+			isRemoved[0] = true;
+			return without(edit, bit, i);
+		}
+
+		private Node without(Object edit, int bit, int i)
+		{
+			if (bitmap == bit)
+				return null;
+
+			Object[] newArray = new Object[array.length - 2];
+			System.arraycopy(array, 0, newArray, 0, i);
+			System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+
+			if (isEditable(edit))
+			{
+				array = newArray;
+				bitmap ^= bit;
+				return this;
+			}
+			return new BitmapNode(edit, bitmap ^ bit, newArray);
+		}
+	}
+
+	/** Creates a subtree holding two keys that fell into the same slot.
+	 * @param edit The builder making the change, or null for a persistent change.
+	 * @param shift The position of the hash bits the subtree splits on.
+	 * @return The subtree.
+	 */
+	private static Node createPair(Object edit, int shift, Object key1, Object value1, int hash2, Object key2,
+			Object value2)
+	{
+		int hash1 = hash(key1);
+		if (hash1 == hash2)
+			return new CollisionNode(edit, hash1, new Object[] { key1, value1, key2, value2 });
+
+		boolean[] isAdded = new boolean[1];
+		return EMPTY.put(edit, shift, hash1, key1, value1, isAdded).put(edit, shift, hash2, key2, value2, isAdded);
+	}
+
+	/** A node holding keys whose hashes are exactly the same, which are simply searched one by one.
+	 * @author Sobhan Mehrpour
+	 */
+	private static class CollisionNode extends Node
+	{
+		private final int hash;
+
+		public CollisionNode(Object edit, int hash, Object[] array)
+		{
+			super(edit, array);
+			this.hash = hash;
+		}
+
+		private int indexOf(Object key)
+		{
+			for (int i = 0 ; i < array.length ; i += 2)
+			{
+				if (key.equals(array[i]))
+					return i;
+			}
+			return -1;
+		}
+
+		Object find(int shift, int hash, Object key)
+		{
+			if (hash != this.hash)
+				return null;
+
+			int i = indexOf(key);
+			return i == -1 ? null : array[i + 1];
+		}
+
+		Node put(Object edit, int shift, int hash, Object key, Object value, boolean[] isAdded)
+		{
+			// A key with another hash means this node has to move down under a new bitmap node.
+			if (hash != this.hash)
+			{
+				int bit = 1 << ((this.hash >>> shift) & MASK);
+				return new BitmapNode(edit, bit, new Object[] { null, this }).put(edit, shift, hash, key, value, isAdded);
+			}
+
+			int i = indexOf(key);
+			if (i != -1)
+			{
+				if (array[i + 1] == value)
+					return this;
+				CollisionNode node = isEditable(edit) ? this : new CollisionNode(edit, hash, array.clone());
+				node.array[i + 1] = value;
+				return node;
+			}
+
+			isAdded[0] = true;
+			Object[] newArray = Arrays.copyOf(array, array.length + 2);
+			newArray[array.length] = key;
+			newArray[array.length + 1] = value;
+			if (isEditable(edit))
+			{
+				array = newArray;
+				return this;
+			}
+			return new CollisionNode(edit, hash, newArray);
+		}
+
+		Node remove(Object edit, int shift, int hash, Object key, boolean[] isRemoved)
+		{
+			if (hash != this.hash)
+				return this;
+
+			int i = indexOf(key);
+			if (i == -1)
+				return this;
+
+			isRemoved[0] = true;
+			if (array.length == 2)
+				return null;
+
+			Object[] newArray = new Object[array.length - 2];
+			System.arraycopy(array, 0, newArray, 0, i);
+			System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+			if (isEditable(edit))
+			{
+				array = newArray;
+				return this;
+			}
+			return new CollisionNode(edit, hash, newArray);
+		}
+	}
+
+	/** Walks every key and value pair of a subtree, depth first.
+	 * @author Sobhan Mehrpour
+	 */
+	private static class PairIterator implements Iterator<Object[]>
+	{
+		// The arrays of the nodes on the current path, and the next pair to look at in each.
+		private final Object[][] arrays;
+		private final int[] positions;
+		private int depth;
+
+		private Object[] nextPair;
+
+		public PairIterator(Node root)
+		{
+			arrays = new Object[MAXIMUM_DEPTH][];
+			positions = new int[MAXIMUM_DEPTH];
+			depth = -1;
+			if (root != null)
+			{
+				arrays[0] = root.array;
+				depth = 0;
+			}
+			advance();
+		}
+
+		private void advance()
+		{
+			nextPair = null;
+			while (depth >= 0)
+			{
+				Object[] array = arrays[depth];
+				int i = positions[depth];
+				if (i >= array.length)
+				{
+					depth--;
+					continue;
+				}
+				positions[depth] = i + 2;
+
+				if (array[i] != null)
+				{
+					nextPair = new Object[] { array[i], array[i + 1] };
+					return;
+				}
+
+				// Descending into the child.
+				depth++;
+				arrays[depth] = ((Node) array[i + 1]).array;
+				positions[depth] = 0;
+			}
+		}
+
+		public boolean hasNext()
+		{
+			return nextPair != null;
+		}
+
+		public Object[] next()
+		{
+			if (!hasNext())
+				throw new IndexOutOfBoundsException("Iterator has no next!");
+
+			Object[] pair = nextPair;
+			advance();
+			return pair;
+		}
+	}
+}
@@ -0,0 +1,274 @@
+package maps;
+
+import priorityqueues.Entry;
+
+/** A hash map that uses open addressing with linear probing instead of bucket lists. The entries are kept in one flat
+ * array whose length is always a power of two, and the table doubles automatically once the load factor is exceeded.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class ProbingHashMap <K extends Comparable<K>, V> extends Map<K,V>
+{
+	/**
+	 * The default number of slots in the table.
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * The default maximum ratio of entries to slots.
+	 */
+	private static final double DEFAULT_LOAD_FACTOR = 0.75;
+
+	/**
+	 * The largest table the map will grow to.
+	 */
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	// The entries and their cached hashes. A null entry marks an empty slot.
+	private Entry<K,V>[] entries;
+	private int[] hashes;
+
+	// Resizing attributes.
+	private double loadFactor;
+	private int threshold;
+
+	/**
+	 * Default constructor. Starts with 16 slots and a load factor of 0.75.
+	 */
+	public ProbingHashMap()
+	{
+		this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+	}
+
+	/** Starting capacity is left up to the user. The load factor defaults to 0.75.
+	 * @param startCapacity The initial number of slots. It is rounded up to a power of two.
+	 */
+	public ProbingHashMap(int startCapacity)
+	{
+		this(startCapacity, DEFAULT_LOAD_FACTOR);
+	}
+
+	/** A full constructor that allows the user to decide both the start capacity and the load factor.
+	 * @param startCapacity The initial number of slots. It is rounded up to a power of two.
+	 * @param loadFactor The maximum ratio of entries to slots before the table doubles. Must be between 0 and 1.
+	 */
+	public ProbingHashMap(int startCapacity, double loadFactor)
+	{
+		// Handling exceptional cases.
+		if (startCapacity < 0)
+			throw new IllegalArgumentException("The start capacity cannot be negative.");
+		if (!(loadFactor > 0 && loadFactor < 1))
+			throw new IllegalArgumentException("The load factor must be between 0 and 1.");
+
+		this.loadFactor = loadFactor;
+		allocate(tableSizeFor(startCapacity));
+	}
+
+	/** Rounds the capacity up to the next power of two.
+	 * @param capacity The requested capacity.
+	 * @return The smallest power of two that is at least the capacity.
+	 */
+	private static int tableSizeFor(int capacity)
+	{
+		if (capacity >= MAXIMUM_CAPACITY)
+			return MAXIMUM_CAPACITY;
+
+		int size = 2;
+		while (size < capacity)
+			size <<= 1;
+		return size;
+	}
+
+	/** Replaces the table with an empty one of the given length.
+	 * @param capacity The new number of slots. Must be a power of two.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private void allocate(int capacity)
+	{
+		entries = (Entry<K,V>[]) new Entry[capacity];
+		hashes = new int[capacity];
+		threshold = (int) Math.min(capacity - 1, capacity * loadFactor);
+	}
+
+	/** Spreads the higher bits of the hash code downwards, since only the lower bits are used as an index.
+	 * @param key The key.
+	 * @return The spread hash.
+	 */
+	private static int hash(Object key)
+	{
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/** Finds the slot holding the key.
+	 * @param key The key.
+	 * @param hash The spread hash of the key.
+	 * @return The index of the slot holding the key. Returns -1 if the key is not in the map.
+	 */
+	private int indexOf(K key, int hash)
+	{
+		int mask = entries.length - 1;
+		int index = hash & mask;
+
+		// The table is never full, so an empty slot always ends the probe sequence.
+		while (entries[index] != null)
+		{
+			// Comparing the cached hashes first avoids most calls to equals.
+			if (hashes[index] == hash && entries[index].hasSameKey(key))
+				return index;
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	public Entry<K, V> get(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int index = indexOf(key, hash(key));
+		return index == -1 ? null : entries[index];
+	}
+
+	/** Inserts a new entry into the map. If the key is already in the map, its value is replaced instead.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
+	public void put(K key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int hash = hash(key);
+		int mask = entries.length - 1;
+		int index = hash & mask;
+
+		// Probing until either the key or an empty slot is found.
+		while (entries[index] != null)
+		{
+			if (hashes[index] == hash && entries[index].hasSameKey(key))
+			{
+				entries[index].setValue(value);
+				return;
+			}
+			index = (index + 1) & mask;
+		}
+
+		// Claiming the empty slot.
+		entries[index] = new Entry<>(key, value);
+		hashes[index] = hash;
+		incrementSize();
+
+		if (size() > threshold)
+			resize();
+	}
+
+	public Entry<K, V> remove(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		int index = indexOf(key, hash(key));
+		if (index == -1)
+			return null;
+
+		Entry<K,V> temp = entries[index];
+		deleteSlot(index);
+		decrementSize();
+		return temp;
+	}
+
+	/** Empties the slot and shifts later entries of the same probe run backwards, so that no tombstones are needed
+	 * and lookups never have to skip over deleted slots.
+	 * @param index The slot being emptied.
+	 */
+	private void deleteSlot(int index)
+	{
+		int mask = entries.length - 1;
+		int hole = index;
+		int position = (index + 1) & mask;
+
+		while (entries[position] != null)
+		{
+			// An entry may fill the hole only if the hole lies between its home slot and its current slot.
+			int home = hashes[position] & mask;
+			int distanceToHole = (hole - home) & mask;
+			int distanceToPosition = (position - home) & mask;
+			if (distanceToHole < distanceToPosition)
+			{
+				entries[hole] = entries[position];
+				hashes[hole] = hashes[position];
+				hole = position;
+			}
+			position = (position + 1) & mask;
+		}
+
+		entries[hole] = null;
+		hashes[hole] = 0;
+	}
+
+	/**
+	 * Doubles the table and reinserts every entry. The cached hashes mean no key has to be hashed again.
+	 */
+	private void resize()
+	{
+		if (entries.length == MAXIMUM_CAPACITY)
+		{
+			// The table cannot grow anymore, so only refuse once it is completely full.
+			if (size() == entries.length - 1)
+				throw new IllegalStateException("The map has reached its maximum capacity.");
+			return;
+		}
+
+		Entry<K,V>[] oldEntries = entries;
+		int[] oldHashes = hashes;
+		allocate(oldEntries.length * 2);
+
+		int mask = entries.length - 1;
+		for (int i = 0 ; i < oldEntries.length ; i++)
+		{
+			if (oldEntries[i] == null)
+				continue;
+
+			int index = oldHashes[i] & mask;
+			while (entries[index] != null)
+				index = (index + 1) & mask;
+			entries[index] = oldEntries[i];
+			hashes[index] = oldHashes[i];
+		}
+	}
+
+	/** Returns the number of slots in the table.
+	 * @return The current table size.
+	 */
+	public int tableSize()
+	{
+		return entries.length;
+	}
+
+	/** Accessor for the load factor.
+	 * @return The maximum ratio of entries to slots.
+	 */
+	public double loadFactor()
+	{
+		return loadFactor;
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder();
+		for (int i = 0 ; i < entries.length ; i++)
+		{
+			if (entries[i] != null)
+			{
+				output.append(i + ": ");
+				output.append(entries[i].toString());
+				output.append("\n");
+			}
+		}
+
+		return output.toString();
+	}
+
+}
@@ -0,0 +1,922 @@
+package maps;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import priorityqueues.Entry;
+
+/** A map from strings to values, stored as an adaptive radix tree over the UTF-8 bytes of the keys. A lookup reads
+ * every byte of the key once, going down one node per byte, and never compares whole keys except for a single check
+ * at the leaf. This suits keys with long shared prefixes, such as URLs and file paths, which a hash map has to hash in
+ * full and a sorted map compares over and over. <br>
+ * Inner nodes come in four sizes, holding up to 4, 16, 48, or 256 children, and grow or shrink as children come and
+ * go, so sparse nodes stay small. Chains of nodes with a single child are collapsed into a prefix stored in the node
+ * below them, and a key that is the only one in its subtree is stored as a leaf as high up as possible. <br>
+ * Entries are iterated in the order of their UTF-8 bytes, which is the order of their code points. This is the same
+ * as the order of compareTo unless the keys contain characters outside the Basic Multilingual Plane. <br>
+ * Keys must be valid Unicode: a string with an unpaired surrogate has no UTF-8 encoding, so it is rejected rather than
+ * stored under a lossy one that could collide with another key. Keys that are already encoded can be passed to get,
+ * put, remove, and prefix as UTF-8 bytes, which must be well-formed in turn.
+ * @author Sobhan Mehrpour
+ * @param <V> The value type.
+ */
+public class RadixTreeMap <V> extends Map<String,V> implements Iterable<Entry<String,V>>
+{
+	/**
+	 * The deepest the iterator stack can get is one node per key byte, so it starts small and grows when needed.
+	 */
+	private static final int INITIAL_STACK_SIZE = 16;
+
+	private Node root;
+
+	// The leaf taken out by the last call to delete.
+	private Leaf removed;
+
+	// Both report malformed input instead of replacing it.
+	private final CharsetEncoder encoder;
+	private final CharsetDecoder decoder;
+
+	/**
+	 * Creates an empty map.
+	 */
+	public RadixTreeMap()
+	{
+		root = null;
+		encoder = StandardCharsets.UTF_8.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+		decoder = StandardCharsets.UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+	}
+
+	/** Returns the UTF-8 bytes of a key.
+	 * @param key The key.
+	 * @return The bytes.
+	 * @throws IllegalArgumentException If the key contains an unpaired surrogate.
+	 */
+	private byte[] encode(String key)
+	{
+		try
+		{
+			ByteBuffer buffer = encoder.encode(CharBuffer.wrap(key));
+			return Arrays.copyOf(buffer.array(), buffer.limit());
+		}
+		catch (CharacterCodingException e)
+		{
+			throw new IllegalArgumentException("The key is not a valid Unicode string.", e);
+		}
+	}
+
+	/** Returns the key with the given UTF-8 bytes.
+	 * @param key The bytes.
+	 * @return The key.
+	 * @throws IllegalArgumentException If the bytes are not well-formed UTF-8.
+	 */
+	private String decode(byte[] key)
+	{
+		try
+		{
+			return decoder.decode(ByteBuffer.wrap(key)).toString();
+		}
+		catch (CharacterCodingException e)
+		{
+			throw new IllegalArgumentException("The key is not well-formed UTF-8.", e);
+		}
+	}
+
+	public Entry<String, V> get(String key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		return get(encode(key));
+	}
+
+	/** Returns the entry whose key has the given UTF-8 encoding, without decoding it first.
+	 * @param key The UTF-8 bytes of the key.
+	 * @return The entry. Returns null if the key is not in the map.
+	 */
+	public Entry<String, V> get(byte[] key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		Node node = root;
+		int depth = 0;
+		while (node != null)
+		{
+			if (node instanceof Leaf)
+			{
+				Leaf leaf = (Leaf) node;
+				return Arrays.equals(leaf.key, key) ? leaf.entry : null;
+			}
+
+			Inner inner = (Inner) node;
+			if (!inner.hasPrefix(key, depth))
+				return null;
+			depth += inner.prefix.length;
+
+			if (depth == key.length)
+				return inner.leaf == null ? null : inner.leaf.entry;
+			node = inner.findChild(key[depth] & 0xFF);
+			depth++;
+		}
+		return null;
+	}
+
+	/** Inserts a new entry into the map. If the key is already in the map, its value is replaced instead.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
+	public void put(String key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		root = insert(root, new Leaf(encode(key), new Entry<>(key, value)), 0);
+	}
+
+	/** Inserts a new entry whose key is given as its UTF-8 encoding. If the key is already in the map, its value is
+	 * replaced instead.
+	 * @param key The UTF-8 bytes of the key. They are copied, so the array can be reused afterwards.
+	 * @param value The value of the entry.
+	 */
+	public void put(byte[] key, V value)
+	{
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		root = insert(root, new Leaf(key.clone(), new Entry<>(decode(key), value)), 0);
+	}
+
+	/** Inserts a leaf into a subtree.
+	 * @param node The root of the subtree.
+	 * @param leaf The new leaf.
+	 * @param depth The number of key bytes already matched above the subtree.
+	 * @return The new root of the subtree.
+	 */
+	private Node insert(Node node, Leaf leaf, int depth)
+	{
+		byte[] key = leaf.key;
+		if (node == null)
+		{
+			incrementSize();
+			return leaf;
+		}
+
+		if (node instanceof Leaf)
+		{
+			Leaf existing = (Leaf) node;
+			if (Arrays.equals(existing.key, key))
+			{
+				existing.entry.setValue(leaf.entry.getValue());
+				return existing;
+			}
+
+			// Two keys now share this spot, so they are split under a new node at the point where they differ.
+			int common = Arrays.mismatch(existing.key, depth, existing.key.length, key, depth, key.length);
+			Inner split = new Node4(Arrays.copyOfRange(key, depth, depth + common));
+			split.place(existing, depth + common);
+			split.place(leaf, depth + common);
+			incrementSize();
+			return split;
+		}
+
+		Inner inner = (Inner) node;
+		int matched = inner.matchPrefix(key, depth);
+		if (matched < inner.prefix.length)
+		{
+			// The key leaves the compressed path part way, so the path is cut there.
+			Inner split = new Node4(Arrays.copyOfRange(inner.prefix, 0, matched));
+			int branch = inner.prefix[matched] & 0xFF;
+			inner.prefix = Arrays.copyOfRange(inner.prefix, matched + 1, inner.prefix.length);
+			split.addChild(branch, inner);
+			split.place(leaf, depth + matched);
+			incrementSize();
+			return split;
+		}
+		depth += inner.prefix.length;
+
+		if (depth == key.length)
+		{
+			if (inner.leaf != null)
+				inner.leaf.entry.setValue(leaf.entry.getValue());
+			else
+			{
+				inner.leaf = leaf;
+				incrementSize();
+			}
+			return inner;
+		}
+
+		int b = key[depth] & 0xFF;
+		Node child = inner.findChild(b);
+		if (child != null)
+		{
+			Node newChild = insert(child, leaf, depth + 1);
+			if (newChild != child)
+				inner.replaceChild(b, newChild);
+			return inner;
+		}
+
+		if (inner.isFull())
+			inner = inner.grow();
+		inner.addChild(b, leaf);
+		incrementSize();
+		return inner;
+	}
+
+	public Entry<String, V> remove(String key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		return remove(encode(key));
+	}
+
+	/** Removes the entry whose key has the given UTF-8 encoding, without decoding it first.
+	 * @param key The UTF-8 bytes of the key.
+	 * @return The removed entry. Returns null if the key is not in the map.
+	 */
+	public Entry<String, V> remove(byte[] key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		removed = null;
+		root = delete(root, key, 0);
+		if (removed == null)
+			return null;
+
+		decrementSize();
+		return removed.entry;
+	}
+
+	/** Removes a key from a subtree.
+	 * @param node The root of the subtree.
+	 * @param key The key.
+	 * @param depth The number of key bytes already matched above the subtree.
+	 * @return The new root of the subtree. The removed leaf, if any, is left in removed.
+	 */
+	private Node delete(Node node, byte[] key, int depth)
+	{
+		if (node == null)
+			return null;
+
+		if (node instanceof Leaf)
+		{
+			if (!Arrays.equals(((Leaf) node).key, key))
+				return node;
+			removed = (Leaf) node;
+			return null;
+		}
+
+		Inner inner = (Inner) node;
+		if (!inner.hasPrefix(key, depth))
+			return inner;
+		depth += inner.prefix.length;
+
+		if (depth == key.length)
+		{
+			if (inner.leaf == null)
+				return inner;
+			removed = inner.leaf;
+			inner.leaf = null;
+			return inner.compact();
+		}
+
+		int b = key[depth] & 0xFF;
+		Node child = inner.findChild(b);
+		if (child == null)
+			return inner;
+
+		Node newChild = delete(child, key, depth + 1);
+		if (newChild == child)
+			return inner;
+		if (newChild == null)
+			inner.removeChild(b);
+		else
+			inner.replaceChild(b, newChild);
+		return inner.compact();
+	}
+
+	/** Returns a view of every entry whose key starts with the given prefix, in order. The subtree of the prefix is
+	 * found once per iterator and then walked without comparing any keys.
+	 * @param prefix The prefix.
+	 * @return The entries.
+	 */
+	public Iterable<Entry<String,V>> prefix(String prefix)
+	{
+		if (prefix == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		return prefix(encode(prefix));
+	}
+
+	/** Returns a view of every entry whose key starts with the given bytes, in order. The bytes do not have to end on
+	 * a character boundary.
+	 * @param prefix The UTF-8 bytes of the prefix. They are copied, so the array can be reused afterwards.
+	 * @return The entries.
+	 */
+	public Iterable<Entry<String,V>> prefix(byte[] prefix)
+	{
+		if (prefix == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		byte[] bytes = prefix.clone();
+
+		// Anonymous iterable class.
+		Iterable<Entry<String,V>> temp = new Iterable<Entry<String,V>>()
+		{
+			public Iterator<Entry<String,V>> iterator()
+			{
+				return new TreeIterator(findPrefix(bytes));
+			}
+		};
+
+		return temp;
+	}
+
+	/** Finds the highest node whose every key starts with the given bytes.
+	 * @param prefix The prefix bytes.
+	 * @return The node. Returns null if no key starts with them.
+	 */
+	private Node findPrefix(byte[] prefix)
+	{
+		Node node = root;
+		int depth = 0;
+		while (node != null)
+		{
+			if (node instanceof Leaf)
+			{
+				byte[] key = ((Leaf) node).key;
+				boolean isMatch = key.length >= prefix.length
+						&& Arrays.equals(key, depth, prefix.length, prefix, depth, prefix.length);
+				return isMatch ? node : null;
+			}
+
+			Inner inner = (Inner) node;
+			int matched = inner.matchPrefix(prefix, depth);
+			if (depth + matched == prefix.length)
+				return inner;
+			if (matched < inner.prefix.length)
+				return null;
+			depth += inner.prefix.length;
+
+			node = inner.findChild(prefix[depth] & 0xFF);
+			depth++;
+		}
+		return null;
+	}
+
+	/** Returns an iterator over every entry in the order of their UTF-8 bytes.
+	 * @return The iterator.
+	 */
+	public Iterator<Entry<String,V>> iterator()
+	{
+		return new TreeIterator(root);
+	}
+
+	public String toString()
+	{
+		StringBuilder output = new StringBuilder("[ ");
+		for (Entry<String,V> entry : this)
+			output.append(entry.toString() + " ");
+		output.append("]");
+		return output.toString();
+	}
+
+	/** Walks a subtree in order, keeping the path to the current node on a stack.
+	 * @author Sobhan Mehrpour
+	 */
+	private class TreeIterator implements Iterator<Entry<String,V>>
+	{
+		// The inner nodes on the path, and the next child byte to visit in each. -1 means the node's own leaf is next.
+		private Inner[] nodes;
+		private int[] positions;
+		private int depth;
+
+		private Leaf next;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		public TreeIterator(Node start)
+		{
+			nodes = new RadixTreeMap.Inner[INITIAL_STACK_SIZE];
+			positions = new int[INITIAL_STACK_SIZE];
+			depth = -1;
+			next = null;
+
+			if (start instanceof Leaf)
+				next = (Leaf) start;
+			else if (start != null)
+			{
+				push((Inner) start);
+				advance();
+			}
+		}
+
+		private void push(Inner node)
+		{
+			if (++depth == nodes.length)
+			{
+				nodes = Arrays.copyOf(nodes, depth * 2);
+				positions = Arrays.copyOf(positions, depth * 2);
+			}
+			nodes[depth] = node;
+			positions[depth] = -1;
+		}
+
+		private void advance()
+		{
+			next = null;
+			while (depth >= 0)
+			{
+				Inner node = nodes[depth];
+				if (positions[depth] == -1)
+				{
+					positions[depth] = 0;
+					if (node.leaf != null)
+					{
+						next = node.leaf;
+						return;
+					}
+				}
+
+				int b = node.nextByte(positions[depth]);
+				if (b == -1)
+				{
+					nodes[depth--] = null;
+					continue;
+				}
+				positions[depth] = b + 1;
+
+				Node child = node.findChild(b);
+				if (child instanceof Leaf)
+				{
+					next = (Leaf) child;
+					return;
+				}
+				push((Inner) child);
+			}
+		}
+
+		public boolean hasNext()
+		{
+			return next != null;
+		}
+
+		public Entry<String,V> next()
+		{
+			if (!hasNext())
+				throw new IndexOutOfBoundsException("Iterator has no next!");
+
+			Entry<String,V> entry = next.entry;
+			if (depth >= 0)
+				advance();
+			else
+				next = null;
+			return entry;
+		}
+	}
+
+	/** A node of the tree.
+	 * @author Sobhan Mehrpour
+	 */
+	private abstract class Node
+	{
+	}
+
+	/** A leaf holding a single entry along with the encoded key.
+	 * @author Sobhan Mehrpour
+	 */
+	private class Leaf extends Node
+	{
+		private final byte[] key;
+		private final Entry<String,V> entry;
+
+		public Leaf(byte[] key, Entry<String,V> entry)
+		{
+			this.key = key;
+			this.entry = entry;
+		}
+	}
+
+	/** An inner node. It holds the compressed path leading to it, a leaf for the key that ends right after that path,
+	 * and its children keyed by the next byte.
+	 * @author Sobhan Mehrpour
+	 */
+	private abstract class Inner extends Node
+	{
+		protected byte[] prefix;
+		protected Leaf leaf;
+		protected int count;
+
+		protected Inner(byte[] prefix)
+		{
+			this.prefix = prefix;
+		}
+
+		/** Returns the number of prefix bytes the key matches, starting at the given depth.
+		 * @param key The key.
+		 * @param depth The number of key bytes already matched.
+		 * @return The number of matching bytes, up to the length of the prefix.
+		 */
+		public int matchPrefix(byte[] key, int depth)
+		{
+			int length = Math.min(prefix.length, key.length - depth);
+			for (int i = 0 ; i < length ; i++)
+			{
+				if (prefix[i] != key[depth + i])
+					return i;
+			}
+			return length;
+		}
+
+		public boolean hasPrefix(byte[] key, int depth)
+		{
+			return matchPrefix(key, depth) == prefix.length;
+		}
+
+		/** Puts a leaf under this node, either as the node's own leaf or as a child.
+		 * @param leaf The leaf.
+		 * @param depth The number of key bytes matched once this node's prefix is included.
+		 */
+		public void place(Leaf leaf, int depth)
+		{
+			if (leaf.key.length == depth)
+				this.leaf = leaf;
+			else
+				addChild(leaf.key[depth] & 0xFF, leaf);
+		}
+
+		/** Copies the prefix, leaf, and children of another node into this one.
+		 * @param node The node being replaced.
+		 * @return This node.
+		 */
+		protected Inner copyFrom(Inner node)
+		{
+			leaf = node.leaf;
+			for (int b = node.nextByte(0) ; b != -1 ; b = node.nextByte(b + 1))
+				addChild(b, node.findChild(b));
+			return this;
+		}
+
+		/** Returns the node that should take this one's place after a removal: a smaller node, the only child merged
+		 * with this node's prefix, the node's own leaf, or this node itself.
+		 * @return The replacement.
+		 */
+		public Node compact()
+		{
+			if (count == 0)
+				return leaf;
+
+			if (count == 1 && leaf == null)
+			{
+				int b = nextByte(0);
+				Node child = findChild(b);
+				if (child instanceof Leaf)
+					return child;
+
+				// Merging this node's path, the branch byte, and the child's path into one.
+				Inner inner = (Inner) child;
+				byte[] merged = new byte[prefix.length + 1 + inner.prefix.length];
+				System.arraycopy(prefix, 0, merged, 0, prefix.length);
+				merged[prefix.length] = (byte) b;
+				System.arraycopy(inner.prefix, 0, merged, prefix.length + 1, inner.prefix.length);
+				inner.prefix = merged;
+				return inner;
+			}
+
+			return shrink();
+		}
+
+		abstract Node findChild(int b);
+
+		/** Adds a child under a byte that has none yet. The node must not be full.
+		 * @param b The byte.
+		 * @param child The child.
+		 */
+		abstract void addChild(int b, Node child);
+
+		abstract void replaceChild(int b, Node child);
+
+		abstract void removeChild(int b);
+
+		/** Returns the smallest byte at or after the given one that has a child.
+		 * @param from The first byte to consider.
+		 * @return The byte. Returns -1 if there is none.
+		 */
+		abstract int nextByte(int from);
+
+		abstract boolean isFull();
+
+		/** Returns a node of the next size up with the same contents.
+		 * @return The larger node.
+		 */
+		abstract Inner grow();
+
+		/** Returns a node of the next size down if this one has become sparse enough.
+		 * @return The smaller node, or this node.
+		 */
+		abstract Inner shrink();
+	}
+
+	/** A node with up to 4 children, kept in byte order and searched one by one.
+	 * @author Sobhan Mehrpour
+	 */
+	private class Node4 extends Inner
+	{
+		private final int[] keys = new int[4];
+		private final Node[] children = newChildren(4);
+
+		public Node4(byte[] prefix)
+		{
+			super(prefix);
+		}
+
+		Node findChild(int b)
+		{
+			for (int i = 0 ; i < count ; i++)
+			{
+				if (keys[i] == b)
+					return children[i];
+			}
+			return null;
+		}
+
+		void addChild(int b, Node child)
+		{
+			int i = count;
+			while (i > 0 && keys[i - 1] > b)
+			{
+				keys[i] = keys[i - 1];
+				children[i] = children[i - 1];
+				i--;
+			}
+			keys[i] = b;
+			children[i] = child;
+			count++;
+		}
+
+		void replaceChild(int b, Node child)
+		{
+			for (int i = 0 ; i < count ; i++)
+			{
+				if (keys[i] == b)
+					children[i] = child;
+			}
+		}
+
+		void removeChild(int b)
+		{
+			for (int i = 0 ; i < count ; i++)
+			{
+				if (keys[i] == b)
+				{
+					System.arraycopy(keys, i + 1, keys, i, count - i - 1);
+					System.arraycopy(children, i + 1, children, i, count - i - 1);
+					children[--count] = null;
+					return;
+				}
+			}
+		}
+
+		int nextByte(int from)
+		{
+			for (int i = 0 ; i < count ; i++)
+			{
+				if (keys[i] >= from)
+					return keys[i];
+			}
+			return -1;
+		}
+
+		boolean isFull()
+		{
+			return count == 4;
+		}
+
+		Inner grow()
+		{
+			return new Node16(prefix).copyFrom(this);
+		}
+
+		Inner shrink()
+		{
+			return this;
+		}
+	}
+
+	/** A node with up to 16 children, kept in byte order and found with a binary search.
+	 * @author Sobhan Mehrpour
+	 */
+	private class Node16 extends Inner
+	{
+		private final int[] keys = new int[16];
+		private final Node[] children = newChildren(16);
+
+		public Node16(byte[] prefix)
+		{
+			super(prefix);
+		}
+
+		private int indexOf(int b)
+		{
+			return Arrays.binarySearch(keys, 0, count, b);
+		}
+
+		Node findChild(int b)
+		{
+			int index = indexOf(b);
+			return index < 0 ? null : children[index];
+		}
+
+		void addChild(int b, Node child)
+		{
+			int index = -indexOf(b) - 1;
+			System.arraycopy(keys, index, keys, index + 1, count - index);
+			System.arraycopy(children, index, children, index + 1, count - index);
+			keys[index] = b;
+			children[index] = child;
+			count++;
+		}
+
+		void replaceChild(int b, Node child)
+		{
+			children[indexOf(b)] = child;
+		}
+
+		void removeChild(int b)
+		{
+			int index = indexOf(b);
+			System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+			System.arraycopy(children, index + 1, children, index, count - index - 1);
+			children[--count] = null;
+		}
+
+		int nextByte(int from)
+		{
+			int index = indexOf(from);
+			if (index < 0)
+				index = -index - 1;
+			return index < count ? keys[index] : -1;
+		}
+
+		boolean isFull()
+		{
+			return count == 16;
+		}
+
+		Inner grow()
+		{
+			return new Node48(prefix).copyFrom(this);
+		}
+
+		Inner shrink()
+		{
+			return count <= 3 ? new Node4(prefix).copyFrom(this) : this;
+		}
+	}
+
+	/** A node with up to 48 children. A table of 256 bytes gives the slot of each byte's child.
+	 * @author Sobhan Mehrpour
+	 */
+	private class Node48 extends Inner
+	{
+		// One more than the slot of each byte's child, so 0 can mean there is none.
+		private final byte[] index = new byte[256];
+		private final Node[] children = newChildren(48);
+
+		public Node48(byte[] prefix)
+		{
+			super(prefix);
+		}
+
+		Node findChild(int b)
+		{
+			int slot = index[b];
+			return slot == 0 ? null : children[slot - 1];
+		}
+
+		void addChild(int b, Node child)
+		{
+			int slot = 0;
+			while (children[slot] != null)
+				slot++;
+			children[slot] = child;
+			index[b] = (byte) (slot + 1);
+			count++;
+		}
+
+		void replaceChild(int b, Node child)
+		{
+			children[index[b] - 1] = child;
+		}
+
+		void removeChild(int b)
+		{
+			children[index[b] - 1] = null;
+			index[b] = 0;
+			count--;
+		}
+
+		int nextByte(int from)
+		{
+			for (int b = from ; b < 256 ; b++)
+			{
+				if (index[b] != 0)
+					return b;
+			}
+			return -1;
+		}
+
+		boolean isFull()
+		{
+			return count == 48;
+		}
+
+		Inner grow()
+		{
+			return new Node256(prefix).copyFrom(this);
+		}
+
+		Inner shrink()
+		{
+			return count <= 12 ? new Node16(prefix).copyFrom(this) : this;
+		}
+	}
+
+	/** A node with a slot for every possible byte.
+	 * @author Sobhan Mehrpour
+	 */
+	private class Node256 extends Inner
+	{
+		private final Node[] children = newChildren(256);
+
+		public Node256(byte[] prefix)
+		{
+			super(prefix);
+		}
+
+		Node findChild(int b)
+		{
+			return children[b];
+		}
+
+		void addChild(int b, Node child)
+		{
+			children[b] = child;
+			count++;
+		}
+
+		void replaceChild(int b, Node child)
+		{
+			children[b] = child;
+		}
+
+		void removeChild(int b)
+		{
+			children[b] = null;
+			count--;
+		}
+
+		int nextByte(int from)
+		{
+			for (int b = from ; b < 256 ; b++)
+			{
+				if (children[b] != null)
+					return b;
+			}
+			return -1;
+		}
+
+		boolean isFull()
+		{
+			return false;
+		}
+
+		Inner grow()
+		{
+			return this;
+		}
+
+		Inner shrink()
+		{
+			return count <= 40 ? new Node48(prefix).copyFrom(this) : this;
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Node[] newChildren(int length)
+	{
+		return (Node[]) new RadixTreeMap.Node[length];
+	}
+}
@@ -1,9 +1,18 @@
 package maps;
 
+import java.util.Iterator;
+import java.util.function.BiFunction;
+
 import basicstructures.ArrayList;
 import priorityqueues.Entry;
 
-public class SortedMap <K extends Comparable<K>, V> extends Map<K,V>
+/** A sorted map that keeps its entries in an array ordered by key. Besides exact lookups it supports navigation: the
+ * entries closest to a key, and views over a range of keys that are walked in order without being copied.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class SortedMap <K extends Comparable<K>, V> extends Map<K,V> implements Iterable<Entry<K,V>>
 {
 	ArrayList<Entry<K,V>> list;
 	
@@ -12,36 +21,169 @@ public class SortedMap <K extends Comparable<K>, V> extends Map<K,V>
 		list = new ArrayList<Entry<K,V>>();
 	}
 	
-	private int binarySearch(K key, int startIndex, int endIndex)
+	/** Bulk loads the map from entries that are already sorted, in a single linear pass. The order is checked along
+	 * the way. The entries are copied, so the map does not share them with the caller.
+	 * @param sortedEntries The entries, in strictly increasing key order.
+	 */
+	public SortedMap(Entry<K,V>[] sortedEntries)
 	{
-		if (key == null || startIndex < 0 || endIndex < 0)
-			throw new IllegalArgumentException();
+		if (sortedEntries == null)
+			throw new IllegalArgumentException("Cannot pass null values to map.");
 		
-		// Terminating condition.
-		if (startIndex > endIndex)
-		{
-			return -1;
-		}
-
-		// Local variables.
-		int middle = (startIndex + endIndex)/2;
-		K entryKey = list.getAtIndex(middle).getKey();
+		list = new ArrayList<Entry<K,V>>(Math.max(sortedEntries.length, 1), true);
+		for (Entry<K,V> entry : sortedEntries)
+			append(entry);
+	}
+	
+	/** Bulk loads the map from entries that are already sorted, in a single linear pass. The order is checked along
+	 * the way. The entries are copied, so the map does not share them with the caller.
+	 * @param sortedEntries The entries, in strictly increasing key order.
+	 */
+	public SortedMap(Iterable<Entry<K,V>> sortedEntries)
+	{
+		if (sortedEntries == null)
+			throw new IllegalArgumentException("Cannot pass null values to map.");
 		
-		// Case 1: Correct key.
-		if (key.equals(entryKey))
-		{
-			return middle;
-		}
-		// Case 2: Key is smaller.
-		else if (key.compareTo(entryKey) < 0)
+		// Doubling keeps the appends amortized O(1) when the number of entries is not known up front.
+		list = new ArrayList<Entry<K,V>>(true);
+		for (Entry<K,V> entry : sortedEntries)
+			append(entry);
+	}
+	
+	/** Appends an entry whose key must be larger than every key in the map.
+	 * @param entry The entry.
+	 */
+	private void append(Entry<K,V> entry)
+	{
+		// Exception handling.
+		if (entry == null || entry.getKey() == null || entry.getValue() == null)
+			throw new IllegalArgumentException("Cannot pass null values to map.");
+		if (!list.isEmpty() && entry.compareTo(list.getLast()) <= 0)
+			throw new IllegalArgumentException("Entries must be in strictly increasing key order.");
+		
+		list.addLast(new Entry<>(entry.getKey(), entry.getValue()));
+		incrementSize();
+	}
+	
+	/** Returns the union of two sorted maps as a new map, built in linear time by merging their entries. Neither map is
+	 * changed. When both maps hold the same key, the value from the second map is kept.
+	 * @param first The first map.
+	 * @param second The second map. Its values win on equal keys.
+	 * @return A new map holding the entries of both.
+	 */
+	public static <K extends Comparable<K>, V> SortedMap<K,V> union(SortedMap<K,V> first, SortedMap<K,V> second)
+	{
+		if (first == null || second == null)
+			throw new IllegalArgumentException("Cannot take the union of null maps.");
+		
+		SortedMap<K,V> output = new SortedMap<K,V>();
+		output.list = new ArrayList<Entry<K,V>>(Math.max(first.size() + second.size(), 1), true);
+		
+		// Standard two way merge.
+		int i = 0;
+		int j = 0;
+		while (i < first.list.size() && j < second.list.size())
 		{
-			return binarySearch (key, startIndex, middle);
+			Entry<K,V> entry1 = first.list.getAtIndex(i);
+			Entry<K,V> entry2 = second.list.getAtIndex(j);
+			int comparison = entry1.compareTo(entry2);
+			
+			if (comparison < 0)
+			{
+				output.append(entry1);
+				i++;
+			}
+			else if (comparison > 0)
+			{
+				output.append(entry2);
+				j++;
+			}
+			else
+			{
+				output.append(entry2);
+				i++;
+				j++;
+			}
 		}
-		// Case 3: Key is larger.
-		else
+		
+		// Adding whatever is left of either map.
+		while (i < first.list.size())
+			output.append(first.list.getAtIndex(i++));
+		while (j < second.list.size())
+			output.append(second.list.getAtIndex(j++));
+		
+		return output;
+	}
+	
+	/** Binary search for the key.
+	 * @param key The key.
+	 * @return The index of the key. Returns -(insertion point) - 1 if the key is not in the map.
+	 */
+	private int binarySearch(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException();
+		
+		int startIndex = 0;
+		int endIndex = list.size() - 1;
+		while (startIndex <= endIndex)
 		{
-			return binarySearch (key, middle + 1, startIndex);
+			// Local variables.
+			int middle = (startIndex + endIndex) >>> 1;
+			int comparison = key.compareTo(list.getAtIndex(middle).getKey());
+			
+			// Case 1: Correct key.
+			if (comparison == 0)
+			{
+				return middle;
+			}
+			// Case 2: Key is smaller.
+			else if (comparison < 0)
+			{
+				endIndex = middle - 1;
+			}
+			// Case 3: Key is larger.
+			else
+			{
+				startIndex = middle + 1;
+			}
 		}
+		
+		// Not found, so startIndex is where the key would be inserted.
+		return -startIndex - 1;
+	}
+	
+	/** Returns the index of the first entry whose key is greater than or equal to the given key.
+	 * @param key The key.
+	 * @param isInclusive Whether an entry with the same key counts. If false, the first greater key is found instead.
+	 * @return The index. Returns size() if there is no such entry.
+	 */
+	private int ceilingIndex(K key, boolean isInclusive)
+	{
+		int index = binarySearch(key);
+		if (index < 0)
+			return -index - 1;
+		return isInclusive ? index : index + 1;
+	}
+	
+	/** Returns the index of the last entry whose key is less than or equal to the given key.
+	 * @param key The key.
+	 * @param isInclusive Whether an entry with the same key counts. If false, the last smaller key is found instead.
+	 * @return The index. Returns -1 if there is no such entry.
+	 */
+	private int floorIndex(K key, boolean isInclusive)
+	{
+		int index = binarySearch(key);
+		if (index < 0)
+			return -index - 2;
+		return isInclusive ? index : index - 1;
+	}
+	
+	private Entry<K,V> entryAt(int index)
+	{
+		if (index < 0 || index >= list.size())
+			return null;
+		return list.getAtIndex(index);
 	}
 
 	@Override
@@ -56,10 +198,10 @@ public class SortedMap <K extends Comparable<K>, V> extends Map<K,V>
 			return null;
 		
 		// Index.
-		int index = binarySearch(key, 0, list.size());
+		int index = binarySearch(key);
 		
 		// Not found.
-		if (index == -1)
+		if (index < 0)
 		{
 			return null;
 		}
@@ -70,33 +212,28 @@ public class SortedMap <K extends Comparable<K>, V> extends Map<K,V>
 		}
 	}
 
+	/** Inserts a new entry into the map. If the key is already in the map, its value is replaced instead.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
 	public void put(K key, V value) 
 	{
 		// Exception handling.
 		if (key == null || value == null)
 			throw new IllegalArgumentException("Cannot pass null values to map.");
 		
-		// Local variables.
-		boolean hasInserted = false;
-		Entry<K,V> entry = new Entry<>(key, value);
-		
-		// Checking for the right spot.
-		for (int i = 0 ; i < list.size() ; i++)
-		{
-			if (entry.compareTo(list.getAtIndex(i)) < 0)
-			{
-				list.addAtIndex(entry, i);
-				hasInserted = true;
-				break;
-			}
-		}
+		// Index.
+		int index = binarySearch(key);
 		
-		// Adds to the end of the list if it has the largest key. This will also be used if the list is empty.
-		if (!hasInserted)
+		// Replacing the value if the key is already there.
+		if (index >= 0)
 		{
-			list.addLast(entry);
+			list.getAtIndex(index).setValue(value);
+			return;
 		}
 		
+		// Otherwise inserting at the right spot. This will append if it has the largest key or the list is empty.
+		list.addAtIndex(new Entry<>(key, value), -index - 1);
 		incrementSize();
 	}
 
@@ -111,10 +248,10 @@ public class SortedMap <K extends Comparable<K>, V> extends Map<K,V>
 			return null;
 		
 		// Index.
-		int index = binarySearch(key, 0, list.size());
+		int index = binarySearch(key);
 		
 		// Not found.
-		if (index == -1)
+		if (index < 0)
 		{
 			return null;
 		}
@@ -126,8 +263,223 @@ public class SortedMap <K extends Comparable<K>, V> extends Map<K,V>
 		}
 	}
 	
+	/** Inserts the key and value only if the key is not in the map yet. A single binary search both finds the key and
+	 * gives the spot to insert it at.
+	 * @param key The key.
+	 * @param value The value.
+	 * @return The value already mapped to the key. Returns null if the key was absent and has been inserted.
+	 */
+	public V putIfAbsent(K key, V value)
+	{
+		// Exception handling.
+		if (key == null || value == null)
+			throw new IllegalArgumentException("Cannot pass null values to map.");
+		
+		int index = binarySearch(key);
+		if (index >= 0)
+			return list.getAtIndex(index).getValue();
+		
+		list.addAtIndex(new Entry<>(key, value), -index - 1);
+		incrementSize();
+		return null;
+	}
+	
+	/** Computes a new value for the key from its current value, which is null if the key is absent. If the function
+	 * returns null, the key is removed instead. A single binary search finds the entry to change or remove, or the spot
+	 * to insert at. The function must not change the map.
+	 * @param key The key.
+	 * @param remappingFunction Computes the new value from the key and the current value.
+	 * @return The new value. Returns null if the key is absent afterwards.
+	 */
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction)
+	{
+		// Exception handling.
+		if (key == null || remappingFunction == null)
+			throw new IllegalArgumentException("Cannot pass null values to map.");
+		
+		int index = binarySearch(key);
+		Entry<K,V> entry = index >= 0 ? list.getAtIndex(index) : null;
+		V value = remappingFunction.apply(key, entry == null ? null : entry.getValue());
+		
+		if (value == null)
+		{
+			if (entry != null)
+			{
+				list.removeAtIndex(index);
+				decrementSize();
+			}
+		}
+		else if (entry != null)
+			entry.setValue(value);
+		else
+		{
+			list.addAtIndex(new Entry<>(key, value), -index - 1);
+			incrementSize();
+		}
+		return value;
+	}
+	
+	/** Returns the entry with the smallest key.
+	 * @return The first entry. Returns null if the map is empty.
+	 */
+	public Entry<K,V> firstEntry()
+	{
+		return list.getFirst();
+	}
+	
+	/** Returns the entry with the largest key.
+	 * @return The last entry. Returns null if the map is empty.
+	 */
+	public Entry<K,V> lastEntry()
+	{
+		return list.getLast();
+	}
+	
+	/** Returns the entry with the largest key less than or equal to the given key.
+	 * @param key The key.
+	 * @return The entry. Returns null if there is none.
+	 */
+	public Entry<K,V> floorEntry(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+		
+		return entryAt(floorIndex(key, true));
+	}
+	
+	/** Returns the entry with the smallest key greater than or equal to the given key.
+	 * @param key The key.
+	 * @return The entry. Returns null if there is none.
+	 */
+	public Entry<K,V> ceilingEntry(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+		
+		return entryAt(ceilingIndex(key, true));
+	}
+	
+	/** Returns the entry with the largest key strictly less than the given key.
+	 * @param key The key.
+	 * @return The entry. Returns null if there is none.
+	 */
+	public Entry<K,V> lowerEntry(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+		
+		return entryAt(floorIndex(key, false));
+	}
+	
+	/** Returns the entry with the smallest key strictly greater than the given key.
+	 * @param key The key.
+	 * @return The entry. Returns null if there is none.
+	 */
+	public Entry<K,V> higherEntry(K key)
+	{
+		if (key == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+		
+		return entryAt(ceilingIndex(key, false));
+	}
+	
+	/** Returns a view of the entries with keys in the range [from, to). Nothing is copied: each iterator finds the start
+	 * of the range with a binary search and then walks the entries in order, so it reflects the map as it is when the
+	 * iterator is created.
+	 * @param from The smallest key included.
+	 * @param to The first key excluded.
+	 * @return The entries in the range, in key order.
+	 */
+	public Iterable<Entry<K,V>> subMap(K from, K to)
+	{
+		if (from == null || to == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+		if (from.compareTo(to) > 0)
+			throw new IllegalArgumentException("The start of the range cannot be after its end.");
+		
+		return range(from, to);
+	}
+	
+	/** Returns a view of the entries with keys strictly less than the given key.
+	 * @param to The first key excluded.
+	 * @return The entries in the range, in key order.
+	 */
+	public Iterable<Entry<K,V>> headMap(K to)
+	{
+		if (to == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+		
+		return range(null, to);
+	}
+	
+	/** Returns a view of the entries with keys greater than or equal to the given key.
+	 * @param from The smallest key included.
+	 * @return The entries in the range, in key order.
+	 */
+	public Iterable<Entry<K,V>> tailMap(K from)
+	{
+		if (from == null)
+			throw new IllegalArgumentException("Key cannot be null.");
+		
+		return range(from, null);
+	}
+	
+	/** Builds a lazily evaluated view over a range of keys.
+	 * @param from The smallest key included. Null means the range has no lower bound.
+	 * @param to The first key excluded. Null means the range has no upper bound.
+	 * @return The view.
+	 */
+	private Iterable<Entry<K,V>> range(K from, K to)
+	{
+		return new Iterable<Entry<K,V>>()
+		{
+			public Iterator<Entry<K,V>> iterator()
+			{
+				int startIndex = from == null ? 0 : ceilingIndex(from, true);
+				int endIndex = to == null ? list.size() : ceilingIndex(to, true);
+				return new RangeIterator(startIndex, endIndex);
+			}
+		};
+	}
+	
+	/** Returns an iterator over every entry in key order.
+	 * @return The iterator.
+	 */
+	public Iterator<Entry<K,V>> iterator()
+	{
+		return new RangeIterator(0, list.size());
+	}
+	
 	public String toString()
 	{
 		return list.toString();
 	}
+	
+	/** Walks the entries between two indices.
+	 * @author Sobhan Mehrpour
+	 */
+	private class RangeIterator implements Iterator<Entry<K,V>>
+	{
+		private int currentIndex;
+		private int endIndex;
+		
+		public RangeIterator(int startIndex, int endIndex)
+		{
+			currentIndex = startIndex;
+			this.endIndex = endIndex;
+		}
+		
+		public boolean hasNext()
+		{
+			return currentIndex < endIndex;
+		}
+		
+		public Entry<K,V> next()
+		{
+			if (!hasNext())
+				throw new IndexOutOfBoundsException("Iterator has no next!");
+			
+			return list.getAtIndex(currentIndex++);
+		}
+	}
 }
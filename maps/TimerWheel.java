@@ -0,0 +1,288 @@
+package maps;
+
+import java.util.function.Consumer;
+
+/** A hierarchical timer wheel. Timers are hashed into buckets by their deadline, on one of several levels whose buckets
+ * cover longer and longer spans of time, so scheduling, rescheduling, and cancelling a timer all take O(1) time. As time
+ * advances, the buckets that were passed are emptied: timers that are due are handed to a callback, and the rest are
+ * moved down to a finer level. Each timer is only moved a handful of times before it is due, so expiring is amortized
+ * O(1) per timer as well. <br>
+ * Times are in nanoseconds. A timer fires on the first advance at or after its deadline.
+ * @author Sobhan Mehrpour
+ * @param <T> The type of the items the timers are for.
+ */
+public class TimerWheel <T>
+{
+	/**
+	 * The number of buckets on every level.
+	 */
+	private static final int BUCKETS = 64;
+
+	/**
+	 * The number of bits the buckets of one level add to the span of the level below it.
+	 */
+	private static final int BUCKET_BITS = 6;
+
+	/**
+	 * The number of levels. Deadlines beyond the last level wait in it and are moved again once it is reached.
+	 */
+	private static final int LEVELS = 5;
+
+	/**
+	 * The span of a level 0 bucket is 2^20 nanoseconds, about a millisecond. Each level above multiplies it by 64.
+	 */
+	private static final int BASE_SHIFT = 20;
+
+	// The buckets of each level. Each bucket is a circular list around a sentinel timer.
+	private final Timer<T>[][] wheel;
+
+	private long currentTime;
+	private int size;
+
+	/** Creates an empty wheel.
+	 * @param now The current time in nanoseconds.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public TimerWheel(long now)
+	{
+		wheel = (Timer<T>[][]) new Timer[LEVELS][BUCKETS];
+		for (int level = 0 ; level < LEVELS ; level++)
+		{
+			for (int i = 0 ; i < BUCKETS ; i++)
+			{
+				Timer<T> sentinel = new Timer<>(null);
+				sentinel.previous = sentinel;
+				sentinel.next = sentinel;
+				wheel[level][i] = sentinel;
+			}
+		}
+		currentTime = now;
+		size = 0;
+	}
+
+	private static int shift(int level)
+	{
+		return BASE_SHIFT + BUCKET_BITS * level;
+	}
+
+	/** Returns the sentinel of the bucket a deadline belongs in, relative to the current time.
+	 * @param deadline The deadline.
+	 * @return The sentinel of the bucket.
+	 */
+	private Timer<T> bucketFor(long deadline)
+	{
+		long duration = deadline - currentTime;
+		int level = 0;
+
+		// Picking the finest level whose buckets together still reach the deadline.
+		while (level < LEVELS - 1 && duration >= (1L << shift(level + 1)))
+			level++;
+
+		int index = (int) ((deadline >> shift(level)) & (BUCKETS - 1));
+		return wheel[level][index];
+	}
+
+	private void link(Timer<T> timer)
+	{
+		Timer<T> sentinel = bucketFor(timer.deadline);
+		timer.previous = sentinel.previous;
+		timer.next = sentinel;
+		sentinel.previous.next = timer;
+		sentinel.previous = timer;
+	}
+
+	private void unlink(Timer<T> timer)
+	{
+		timer.previous.next = timer.next;
+		timer.next.previous = timer.previous;
+		timer.previous = null;
+		timer.next = null;
+	}
+
+	/** Schedules a new timer.
+	 * @param item The item the timer is for.
+	 * @param deadline The time at which the timer is due, in nanoseconds.
+	 * @return The timer, which can later be rescheduled or cancelled.
+	 */
+	public Timer<T> schedule(T item, long deadline)
+	{
+		if (item == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		Timer<T> timer = new Timer<>(item);
+		timer.deadline = deadline;
+		link(timer);
+		size++;
+		return timer;
+	}
+
+	/** Moves a scheduled timer to a new deadline.
+	 * @param timer The timer.
+	 * @param deadline The new deadline, in nanoseconds.
+	 */
+	public void reschedule(Timer<T> timer, long deadline)
+	{
+		if (timer == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+		if (!timer.isScheduled())
+			throw new IllegalStateException("The timer is not scheduled.");
+
+		unlink(timer);
+		timer.deadline = deadline;
+		link(timer);
+	}
+
+	/** Removes a timer from the wheel so it never fires. Cancelling a timer that is not scheduled does nothing.
+	 * @param timer The timer.
+	 */
+	public void cancel(Timer<T> timer)
+	{
+		if (timer == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+		if (!timer.isScheduled())
+			return;
+
+		unlink(timer);
+		size--;
+	}
+
+	/** Advances the wheel to the given time and hands every timer that has become due to the callback, after removing
+	 * it from the wheel.
+	 * @param now The current time in nanoseconds. Going backwards in time does nothing.
+	 * @param onExpire Called with the item of every timer that is due.
+	 */
+	public void advance(long now, Consumer<T> onExpire)
+	{
+		if (onExpire == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		long previousTime = currentTime;
+		if (now - previousTime <= 0)
+			return;
+		currentTime = now;
+
+		for (int level = 0 ; level < LEVELS ; level++)
+		{
+			long previousTicks = previousTime >> shift(level);
+			long currentTicks = now >> shift(level);
+			long delta = currentTicks - previousTicks;
+
+			// Coarser levels can only have been passed if this one wrapped around.
+			if (delta <= 0 && level > 0)
+				break;
+
+			// The bucket of the current tick is included, so its timers move down to finer levels before they are due.
+			// On level 0 it is checked even if the tick has not changed, since timers in it may have come due since.
+			long count = Math.min(delta + 1, BUCKETS);
+			for (long tick = previousTicks ; tick < previousTicks + count ; tick++)
+				expire(wheel[level][(int) (tick & (BUCKETS - 1))], onExpire);
+		}
+	}
+
+	/** Empties a bucket, firing the timers that are due and moving the others to where they now belong.
+	 * @param sentinel The sentinel of the bucket.
+	 * @param onExpire The callback.
+	 */
+	private void expire(Timer<T> sentinel, Consumer<T> onExpire)
+	{
+		if (sentinel.next == sentinel)
+			return;
+
+		// Detaching the whole bucket first, since moved timers may land in it again.
+		Timer<T> timer = sentinel.next;
+		sentinel.previous.next = null;
+		sentinel.previous = sentinel;
+		sentinel.next = sentinel;
+
+		while (timer != null)
+		{
+			Timer<T> next = timer.next;
+			timer.previous = null;
+			timer.next = null;
+
+			if (timer.deadline - currentTime <= 0)
+			{
+				size--;
+				onExpire.accept(timer.item);
+			}
+			else
+				link(timer);
+
+			timer = next;
+		}
+	}
+
+	/** Calls the action with every scheduled timer, in no particular order. The action must not change the wheel.
+	 * @param action The action.
+	 */
+	public void forEach(Consumer<Timer<T>> action)
+	{
+		if (action == null)
+			throw new IllegalArgumentException("Null values cannot be passed.");
+
+		for (int level = 0 ; level < LEVELS ; level++)
+		{
+			for (int i = 0 ; i < BUCKETS ; i++)
+			{
+				Timer<T> sentinel = wheel[level][i];
+				for (Timer<T> timer = sentinel.next ; timer != sentinel ; timer = timer.next)
+					action.accept(timer);
+			}
+		}
+	}
+
+	/** Returns the number of scheduled timers.
+	 * @return The number of timers.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/** Returns the time the wheel was last advanced to.
+	 * @return The current time in nanoseconds.
+	 */
+	public long currentTime()
+	{
+		return currentTime;
+	}
+
+	/** A timer on the wheel. It is also the node of the bucket it is in, so it can be unlinked in O(1) time.
+	 * @author Sobhan Mehrpour
+	 * @param <T> The type of the item.
+	 */
+	public static class Timer <T>
+	{
+		private final T item;
+		private long deadline;
+
+		private Timer<T> previous;
+		private Timer<T> next;
+
+		private Timer(T item)
+		{
+			this.item = item;
+		}
+
+		public T item()
+		{
+			return item;
+		}
+
+		/** Returns the time at which the timer is due.
+		 * @return The deadline in nanoseconds.
+		 */
+		public long deadline()
+		{
+			return deadline;
+		}
+
+		/** Returns whether the timer is still on the wheel.
+		 * @return True if it has neither fired nor been cancelled. False otherwise.
+		 */
+		public boolean isScheduled()
+		{
+			return next != null;
+		}
+	}
+}
@@ -1,65 +1,425 @@
 package maps;
 
-import basicstructures.DoublyLinkedList;
+import java.util.Arrays;
+import java.util.function.BiFunction;
+
 import priorityqueues.Entry;
 
+/** A map that keeps its entries in no particular order and finds them by walking through all of them. <br>
+ * By default the entries sit in a linked list. The list can reorder itself as keys are accessed, following one of the
+ * AccessHeuristic strategies, so that under a skewed access pattern the popular keys are found near the front. Each
+ * reordering only relinks a node, so it costs O(1) on top of the walk that found it. <br>
+ * A compact map instead keeps its entries side by side in one small array, which saves the list and its nodes and
+ * keeps a scan within a few cache lines. This suits large numbers of maps with only a handful of entries each. Once a
+ * compact map outgrows the array, it moves its entries into a HashMap and stays there.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
 public class UnsortedMap<K extends Comparable<K>, V> extends Map <K,V>
 {
-	private DoublyLinkedList<Entry<K,V>> list;
-	
+	/**
+	 * The size of the array when a compact map gets its first entry.
+	 */
+	private static final int INITIAL_COMPACT_CAPACITY = 2;
+
+	/**
+	 * The most entries a compact map keeps in its array before moving them into a hash map.
+	 */
+	private static final int MAXIMUM_COMPACT_CAPACITY = 8;
+
+	// List maps only.
+	private Node head;
+	private Node tail;
+	private final AccessHeuristic heuristic;
+
+	// Compact maps only. The array holds the entries in its first size() slots until the map is promoted.
+	private final boolean isCompact;
+	private Entry<K,V>[] entries;
+	private HashMap<K,V> promoted;
+
 	public UnsortedMap()
 	{
-		list = new DoublyLinkedList<Entry<K,V>>();
+		this(AccessHeuristic.NONE);
+	}
+
+	/** Lets the user choose between a linked list and a compact array.
+	 * @param isCompact Whether the entries are kept in a small array that turns into a hash map once it is outgrown.
+	 */
+	public UnsortedMap(boolean isCompact)
+	{
+		this.isCompact = isCompact;
+		heuristic = AccessHeuristic.NONE;
 	}
 
+	/** Creates a list map that reorders itself as keys are accessed.
+	 * @param heuristic How the list is reordered.
+	 */
+	public UnsortedMap(AccessHeuristic heuristic)
+	{
+		if (heuristic == null)
+			throw new IllegalArgumentException("The heuristic cannot be null!");
+
+		isCompact = false;
+		this.heuristic = heuristic;
+	}
+
+	/** Returns the entry with the given key. In a self-organizing map, this counts as an access.
+	 * @param key The key.
+	 * @return The entry. Returns null if the key is not in the map.
+	 */
 	public Entry<K, V> get(K key) {
 		if (key == null)
 			throw new IllegalArgumentException("The key cannot be null!");
-		
+
 		if(isEmpty())
 			return null;
-		
-		for(Entry<K,V> entry : list)
+
+		if (isCompact)
 		{
-			if (entry.hasSameKey(key))
-				return entry;
+			if (promoted != null)
+				return promoted.get(key);
+
+			int index = indexOf(key);
+			return index == -1 ? null : entries[index];
 		}
-		
-		return null;
+
+		Node node = find(key);
+		if (node == null)
+			return null;
+
+		access(node);
+		return node.entry;
 	}
 
+	/** Inserts a new entry into the map, or replaces the value if the key is already in it. This is the same in every
+	 * mode; in a self-organizing map it also counts as an access.
+	 * @param key The key of the entry.
+	 * @param value The value of the entry.
+	 */
 	public void put(K key, V value) {
 		if (key == null || value == null)
 			throw new IllegalArgumentException("The key and value must not be null");
-		
-		list.addStart(new Entry<K,V>(key,value));
-		incrementSize();
+
+		compute(key, (k, v) -> value);
 	}
 
 	public Entry<K, V> remove(K key) {
 		if (key == null)
 			throw new IllegalArgumentException("The key cannot be null!");
-		
+
 		if(isEmpty())
 			return null;
-		
-		int index = 0;
-		for(Entry<K,V> entry : list)
+
+		if (isCompact)
+		{
+			if (promoted != null)
+			{
+				Entry<K,V> entry = promoted.remove(key);
+				if (entry != null)
+					decrementSize();
+				return entry;
+			}
+
+			int index = indexOf(key);
+			if (index == -1)
+				return null;
+
+			Entry<K,V> entry = entries[index];
+			delete(index);
+			return entry;
+		}
+
+		Node node = find(key);
+		if (node == null)
+			return null;
+
+		unlink(node);
+		decrementSize();
+		return node.entry;
+	}
+
+	public V putIfAbsent(K key, V value) {
+		if (key == null || value == null)
+			throw new IllegalArgumentException("The key and value must not be null");
+
+		Entry<K,V> entry = get(key);
+		if (entry != null)
+			return entry.getValue();
+
+		// The lookup above already ruled out duplicates, so the entry can be added without another walk.
+		add(new Entry<K,V>(key,value));
+		return null;
+	}
+
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		if (key == null || remappingFunction == null)
+			throw new IllegalArgumentException("The key and function must not be null");
+
+		if (promoted != null)
+		{
+			int sizeBefore = promoted.size();
+			V value = promoted.compute(key, remappingFunction);
+			followSize(sizeBefore);
+			return value;
+		}
+
+		// Finding the entry and its position in one walk.
+		Entry<K,V> found = null;
+		Node node = null;
+		int index = -1;
+		if (isCompact)
+		{
+			index = indexOf(key);
+			if (index != -1)
+				found = entries[index];
+		}
+		else
 		{
-			if (entry.hasSameKey(key))
+			node = find(key);
+			if (node != null)
+				found = node.entry;
+		}
+
+		V value = remappingFunction.apply(key, found == null ? null : found.getValue());
+		if (value == null)
+		{
+			if (isCompact && found != null)
+				delete(index);
+			else if (found != null)
 			{
+				unlink(node);
 				decrementSize();
-				return list.removeAtIndex(index);
 			}
-			index++;
 		}
-		
+		else if (found != null)
+		{
+			found.setValue(value);
+			if (node != null)
+				access(node);
+		}
+		else
+			add(new Entry<K,V>(key,value));
+		return value;
+	}
+
+	/** Returns the first node of the list with the given key, without reordering anything.
+	 * @param key The key.
+	 * @return The node. Returns null if the key is not in the list.
+	 */
+	private Node find(K key) {
+		for (Node node = head ; node != null ; node = node.next)
+		{
+			if (node.entry.hasSameKey(key))
+				return node;
+		}
 		return null;
 	}
-	
+
+	/** Reorders the list after a node was accessed, following the heuristic.
+	 * @param node The node.
+	 */
+	private void access(Node node) {
+		switch (heuristic)
+		{
+			case MOVE_TO_FRONT:
+				if (node != head)
+				{
+					unlink(node);
+					linkAfter(node, null);
+				}
+				break;
+
+			case TRANSPOSE:
+				if (node.prev != null)
+				{
+					Node before = node.prev.prev;
+					unlink(node);
+					linkAfter(node, before);
+				}
+				break;
+
+			case COUNT:
+				// Moving the node in front of every node that now has a lower count.
+				node.count++;
+				Node before = node.prev;
+				while (before != null && before.count < node.count)
+					before = before.prev;
+				if (before != node.prev)
+				{
+					unlink(node);
+					linkAfter(node, before);
+				}
+				break;
+
+			default:
+				break;
+		}
+	}
+
+	private void unlink(Node node) {
+		if (node.prev == null)
+			head = node.next;
+		else
+			node.prev.next = node.next;
+
+		if (node.next == null)
+			tail = node.prev;
+		else
+			node.next.prev = node.prev;
+
+		node.prev = null;
+		node.next = null;
+	}
+
+	/** Links a node into the list right after another one.
+	 * @param node The node.
+	 * @param before The node to follow. The node goes to the front if this is null.
+	 */
+	private void linkAfter(Node node, Node before) {
+		node.prev = before;
+		node.next = before == null ? head : before.next;
+
+		if (before == null)
+			head = node;
+		else
+			before.next = node;
+
+		if (node.next == null)
+			tail = node;
+		else
+			node.next.prev = node;
+	}
+
+	/** Returns the position of the key in the compact array.
+	 * @param key The key.
+	 * @return The index. Returns -1 if the key is not in the array.
+	 */
+	private int indexOf(K key) {
+		for (int i = 0 ; i < size() ; i++)
+		{
+			if (entries[i].hasSameKey(key))
+				return i;
+		}
+		return -1;
+	}
+
+	/** Adds an entry whose key is known not to be in the map. List entries go to the front, except when ordered by
+	 * count, where a new entry has the lowest count and goes to the back.
+	 * @param entry The entry.
+	 */
+	private void add(Entry<K,V> entry) {
+		if (!isCompact)
+			linkAfter(new Node(entry), heuristic == AccessHeuristic.COUNT ? tail : null);
+		else if (promoted != null)
+			promoted.insert(entry);
+		else if (size() == MAXIMUM_COMPACT_CAPACITY)
+			promote(entry);
+		else
+		{
+			if (entries == null)
+				entries = newEntryArray(INITIAL_COMPACT_CAPACITY);
+			else if (size() == entries.length)
+				entries = Arrays.copyOf(entries, entries.length * 2);
+			entries[size()] = entry;
+		}
+		incrementSize();
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Entry<K,V>[] newEntryArray(int length) {
+		return (Entry<K,V>[]) new Entry[length];
+	}
+
+	/** Removes the entry at the given position of the compact array.
+	 * @param index The index.
+	 */
+	private void delete(int index) {
+		// Closing the gap keeps the entries in the order they were added.
+		System.arraycopy(entries, index + 1, entries, index, size() - index - 1);
+		entries[size() - 1] = null;
+		decrementSize();
+	}
+
+	/** Moves the entries of a full compact array into a hash map, along with one more. The entries themselves are
+	 * moved rather than copied, so entries returned earlier by get stay part of the map.
+	 * @param entry The entry that did not fit.
+	 */
+	private void promote(Entry<K,V> entry) {
+		promoted = new HashMap<K,V>();
+		for (int i = 0 ; i < size() ; i++)
+			promoted.insert(entries[i]);
+		promoted.insert(entry);
+		entries = null;
+	}
+
+	/** Matches this map's size to that of the hash map it was promoted to, after a call that changed it by at most one.
+	 * @param sizeBefore The size of the hash map before the call.
+	 */
+	private void followSize(int sizeBefore) {
+		if (promoted.size() > sizeBefore)
+			incrementSize();
+		else if (promoted.size() < sizeBefore)
+			decrementSize();
+	}
+
+	/** Returns whether the entries are currently kept in the compact array.
+	 * @return True for a compact map that has not been promoted to a hash map yet.
+	 */
+	public boolean isCompact()
+	{
+		return isCompact && promoted == null;
+	}
+
+	/** Returns how the list reorders itself as keys are accessed.
+	 * @return The heuristic. Always NONE for a compact map.
+	 */
+	public AccessHeuristic accessHeuristic()
+	{
+		return heuristic;
+	}
+
 	public String toString()
 	{
-		return list.toString();
+		if (promoted != null)
+			return promoted.toString();
+
+		StringBuilder output = new StringBuilder();
+		if (isCompact)
+		{
+			for (int i = 0 ; i < size() ; i++)
+			{
+				if (i > 0)
+					output.append(" --> ");
+				output.append(entries[i].toString());
+			}
+		}
+		else
+		{
+			for (Node node = head ; node != null ; node = node.next)
+			{
+				if (node != head)
+					output.append(" --> ");
+				output.append(node.entry.toString());
+			}
+		}
+		return output.toString();
+	}
+
+	/** A node of the list, holding an entry and, when ordering by count, the number of times it was accessed.
+	 * @author Sobhan Mehrpour
+	 */
+	private class Node
+	{
+		private final Entry<K,V> entry;
+		private Node prev;
+		private Node next;
+		private int count;
+
+		public Node(Entry<K,V> entry)
+		{
+			this.entry = entry;
+		}
 	}
 
 }
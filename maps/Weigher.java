@@ -0,0 +1,16 @@
+package maps;
+
+/** Computes how much of a CacheMap's capacity an entry takes up.
+ * @author Sobhan Mehrpour
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public interface Weigher <K, V>
+{
+	/** Returns the weight of an entry. It is computed once when the entry is put into the cache.
+	 * @param key The key.
+	 * @param value The value.
+	 * @return The weight. Must not be negative.
+	 */
+	int weigh(K key, V value);
+}